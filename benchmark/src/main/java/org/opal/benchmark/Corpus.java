@@ -0,0 +1,126 @@
+package org.opal.benchmark;
+
+// Synthetic Opal sources for benchmarking the front end. Each generator
+// produces a single translation unit of roughly the requested number of
+// tokens, built from declarations the parser fully understands.
+
+public class Corpus {
+
+  // Each variable declaration line is eleven tokens long, e.g.
+  // "var v1: int32 = 1 + 2 * 3;"
+  private static final int TOKENS_PER_DECLARATION = 11;
+
+  public static String declarations (int tokenCount) {
+    var count = Math.max(1, tokenCount / TOKENS_PER_DECLARATION);
+    var sb = new StringBuilder(count * 32);
+    sb.append("package bench;\n\n");
+    for (var i = 0; i < count; i++) {
+      sb.append("var v")
+        .append(i)
+        .append(": int32 = ")
+        .append(i % 97)
+        .append(" + ")
+        .append(i % 13)
+        .append(" * ")
+        .append(i % 7)
+        .append(";\n");
+    }
+    return sb.toString();
+  }
+
+  // Each formatted declaration has the same eleven tokens as above, but is
+  // laid out the way generated sources often are: deeply indented, with long
+  // identifiers, and preceded by a block comment. Most of the text is
+  // therefore whitespace, comments, and identifier characters.
+
+  public static String formatted (int tokenCount) {
+    var count = Math.max(1, tokenCount / TOKENS_PER_DECLARATION);
+    var indent = " ".repeat(24);
+    var sb = new StringBuilder(count * 256);
+    sb.append("package bench;\n\n");
+    for (var i = 0; i < count; i++) {
+      sb.append(indent)
+        .append("/*\n")
+        .append(indent)
+        .append(" * Generated declaration number ")
+        .append(i)
+        .append(", which is described at some length here.\n")
+        .append(indent)
+        .append(" */\n")
+        .append(indent)
+        .append("var generated_variable_with_a_rather_long_name_")
+        .append(i)
+        .append(": int32 = ")
+        .append(i % 97)
+        .append(" + ")
+        .append(i % 13)
+        .append(" * ")
+        .append(i % 7)
+        .append(";    // trailing comment\n");
+    }
+    return sb.toString();
+  }
+
+  // Each expression declaration has an initializer that uses every binary
+  // operator precedence level, along with unary operators and parentheses,
+  // e.g. "var e1: int32 = a = -b * c + d << 2 < e == f & g ^ h | i and j or (k % 3 - 1);"
+  // These are about thirty-five tokens long.
+
+  private static final int TOKENS_PER_EXPRESSION = 35;
+
+  public static String expressions (int tokenCount) {
+    var count = Math.max(1, tokenCount / TOKENS_PER_EXPRESSION);
+    var sb = new StringBuilder(count * 96);
+    sb.append("package bench;\n\n");
+    for (var i = 0; i < count; i++) {
+      sb.append("var e")
+        .append(i)
+        .append(": int32 = a = -b * c + d << ")
+        .append(i % 31)
+        .append(" < e == f & g ^ h | i and j or (k % ")
+        .append(i % 97)
+        .append(" - 1);\n");
+    }
+    return sb.toString();
+  }
+
+  // Each routine has a one-line signature and a body of nested if statements
+  // with conditions on the parameter, e.g.
+  //   def f1 (a: int32) -> int32 {
+  //     if (a * 2 + 1 > 10) {
+  //       if (a < 100 and a != 7) {
+  //       }
+  //     }
+  //     if (a == 3 or a - 1 == 5) {
+  //     }
+  //   }
+  // Signatures are about a fifth of the tokens, the rest being body.
+
+  private static final int TOKENS_PER_ROUTINE = 57;
+
+  public static String routines (int tokenCount) {
+    var count = Math.max(1, tokenCount / TOKENS_PER_ROUTINE);
+    var sb = new StringBuilder(count * 160);
+    sb.append("package bench;\n\n");
+    for (var i = 0; i < count; i++) {
+      sb.append("def f")
+        .append(i)
+        .append(" (a: int32) -> int32 {\n")
+        .append("  if (a * 2 + 1 > ")
+        .append(i % 97)
+        .append(") {\n")
+        .append("    if (a < 100 and a != ")
+        .append(i % 13)
+        .append(") {\n")
+        .append("    }\n")
+        .append("  }\n")
+        .append("  if (a == 3 or a - 1 == ")
+        .append(i % 7)
+        .append(") {\n")
+        .append("  }\n")
+        .append("}\n");
+    }
+    return sb.toString();
+  }
+
+}
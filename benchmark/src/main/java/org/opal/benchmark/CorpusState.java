@@ -0,0 +1,54 @@
+package org.opal.benchmark;
+
+import org.opal.Utf8Source;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The source every benchmark starts from. It is one of the synthetic corpora,
+// at one of four sizes given in tokens, from 10K to 5M. Declarations are
+// short variable declarations, expressions are declarations with long
+// initializers, and routines are routines with nested if statements, whose
+// bodies are most of the tokens. Formatted is the declarations corpus laid
+// out with deep indentation, block comments, and long identifiers, so that
+// most of its bytes are skipped over rather than turned into tokens. The tiny
+// size shows the fixed cost of a file, which dominates for small files.
+
+@State(Scope.Benchmark)
+public class CorpusState {
+
+  @Param({ "tiny", "small", "medium", "huge" })
+  public String size;
+
+  @Param({ "declarations", "formatted", "expressions", "routines" })
+  public String corpus;
+
+  public Utf8Source text;
+
+  @Setup(Level.Trial)
+  public void generate () {
+    var tokenCount = tokenCount(size);
+    var source = switch (corpus) {
+      case "declarations" -> Corpus.declarations(tokenCount);
+      case "formatted" -> Corpus.formatted(tokenCount);
+      case "expressions" -> Corpus.expressions(tokenCount);
+      case "routines" -> Corpus.routines(tokenCount);
+      default -> throw new IllegalArgumentException("unknown corpus " + corpus);
+    };
+    text = Utf8Source.of(source);
+  }
+
+  static int tokenCount (String size) {
+    return switch (size) {
+      case "tiny" -> 10_000;
+      case "small" -> 100_000;
+      case "medium" -> 1_000_000;
+      case "huge" -> 5_000_000;
+      default -> throw new IllegalArgumentException("unknown size " + size);
+    };
+  }
+
+}
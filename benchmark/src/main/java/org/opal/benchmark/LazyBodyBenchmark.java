@@ -0,0 +1,77 @@
+package org.opal.benchmark;
+
+import org.opal.Lexer;
+import org.opal.Parser;
+import org.opal.SourceFile;
+import org.opal.TokenBuffer;
+import org.opal.TokenStream;
+import org.opal.Utf8Source;
+import org.opal.ast.AstNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Parses the routines corpus with every body parsed up front, with lazy
+// routine bodies, where bodies are only skipped, and with lazy bodies that
+// are all parsed afterwards. The lazy case is what a build that only needs
+// signatures pays. Tokens are lexed up front so that only the parser is
+// measured.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+public class LazyBodyBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Routines {
+
+    @Param({ "tiny", "small", "medium", "huge" })
+    public String size;
+
+    SourceFile file;
+    TokenBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void lex () {
+      file = new SourceFile(Utf8Source.of(Corpus.routines(CorpusState.tokenCount(size))));
+      buffer = new Lexer(file).process().getBuffer();
+    }
+
+  }
+
+  @Benchmark
+  public AstNode eager (Routines routines) {
+    return new Parser(new TokenStream(routines.buffer), routines.file).process();
+  }
+
+  @Benchmark
+  public AstNode lazy (Routines routines) {
+    var parser = new Parser(new TokenStream(routines.buffer), routines.file);
+    parser.setLazyRoutineBodies(true);
+    return parser.process();
+  }
+
+  @Benchmark
+  public AstNode forced (Routines routines) {
+    var parser = new Parser(new TokenStream(routines.buffer), routines.file);
+    parser.setLazyRoutineBodies(true);
+    var root = parser.process();
+    parser.parseDeferredBodies();
+    return root;
+  }
+
+}
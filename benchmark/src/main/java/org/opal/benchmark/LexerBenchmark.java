@@ -0,0 +1,60 @@
+package org.opal.benchmark;
+
+import org.opal.Lexer;
+import org.opal.SourceFile;
+import org.opal.TokenStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Lexes a whole corpus into a complete token stream. The line index is built
+// during the scan, so every run needs a fresh source file. Along with ops/s,
+// the bytes counter gives the bytes of source lexed per second, from which
+// the throughput in MB/s follows.
+
+// The lexer skips whitespace, comments, and identifier characters eight bytes
+// at a time. Setting opal.scalar makes it skip them one byte at a time, so
+// the two can be compared on the formatted corpus, where such runs are most
+// of the text:
+//   java -jar benchmark/target/benchmarks.jar LexerBenchmark -p corpus=formatted
+//   java -jar benchmark/target/benchmarks.jar LexerBenchmark -p corpus=formatted -jvmArgsAppend -Dopal.scalar=true
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+public class LexerBenchmark {
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Bytes {
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset () {
+      bytes = 0;
+    }
+
+  }
+
+  @Benchmark
+  public TokenStream lex (CorpusState corpus, Bytes bytes) {
+    bytes.bytes += corpus.text.length();
+    return new Lexer(new SourceFile(corpus.text)).process();
+  }
+
+}
@@ -0,0 +1,77 @@
+package org.opal.benchmark;
+
+import org.opal.Lexer;
+import org.opal.Parser;
+import org.opal.SourceFile;
+import org.opal.TokenBuffer;
+import org.opal.TokenStream;
+import org.opal.ast.AstNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Parses a corpus that was lexed once up front, so only the parser is
+// measured. Each run reads the same tokens through a new stream.
+
+// Every initializer in the expressions corpus uses all of the binary operator
+// precedence levels, so comparing it with the declarations corpus shows what
+// expression parsing costs per token.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+public class ParserBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Tokens {
+
+    SourceFile file;
+    TokenBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void lex (CorpusState corpus) {
+      file = new SourceFile(corpus.text);
+      buffer = new Lexer(file).process().getBuffer();
+    }
+
+  }
+
+  @Benchmark
+  public AstNode parse (Tokens tokens) {
+    return new Parser(new TokenStream(tokens.buffer), tokens.file).process();
+  }
+
+  // Parses the same tokens with the declarations split into chunks that are
+  // parsed in parallel on the common pool. Against parse, this shows the
+  // speedup, or on a single core the overhead of chunking.
+
+  @Benchmark
+  public AstNode parallel (Tokens tokens) {
+    var parser = new Parser(new TokenStream(tokens.buffer), tokens.file);
+    parser.setParallelDeclarations(true);
+    return parser.process();
+  }
+
+  // Lexes and parses together, with the parser pulling tokens from the lexer
+  // on demand, for comparison against lexing and parsing as separate phases
+
+  @Benchmark
+  public AstNode stream (CorpusState corpus) {
+    var file = new SourceFile(corpus.text);
+    return new Parser(new Lexer(file).stream(), file).process();
+  }
+
+}
@@ -0,0 +1,130 @@
+package org.opal.benchmark;
+
+import org.opal.Lexer;
+import org.opal.Parser;
+import org.opal.Pass10;
+import org.opal.Pass20;
+import org.opal.Pass30;
+import org.opal.Pass40;
+import org.opal.SourceFile;
+import org.opal.ast.TranslationUnit;
+import org.opal.error.Diagnostics;
+import org.opal.symbol.IdentifierTable;
+import org.opal.type.TypeTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// Runs one semantic pass over the AST of a corpus. Passes annotate the tree
+// with scopes, symbols, and types, and Pass40 even inserts conversion nodes,
+// so every run gets a freshly parsed tree on which the passes before the one
+// being measured have already run. The setup is not timed, but allocation
+// rates reported by -prof gc include it. Passes print banners and errors,
+// which would only measure the console, so standard output is discarded.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+public class PassBenchmark {
+
+  @State(Scope.Thread)
+  public static class Tree {
+
+    TranslationUnit root;
+
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void silence () {
+      out = System.out;
+      System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore () {
+      System.setOut(out);
+    }
+
+    // Parses the corpus and runs the given number of passes on it, in the
+    // order the translator runs them
+
+    void prepare (CorpusState corpus, int passes) {
+      var identifiers = new IdentifierTable();
+      var file = new SourceFile(corpus.text);
+      var tokens = new Lexer(file, new Diagnostics(), identifiers).process();
+      root = (TranslationUnit)new Parser(tokens, file).process();
+      if (passes > 0)
+        new Pass10(root, identifiers).process();
+      if (passes > 1)
+        new Pass20(root).process();
+      if (passes > 2)
+        new Pass30(root, new TypeTable()).process();
+    }
+
+  }
+
+  @State(Scope.Thread)
+  public static class Before20 extends Tree {
+
+    @Setup(Level.Invocation)
+    public void prepare (CorpusState corpus) {
+      prepare(corpus, 1);
+    }
+
+  }
+
+  @State(Scope.Thread)
+  public static class Before30 extends Tree {
+
+    @Setup(Level.Invocation)
+    public void prepare (CorpusState corpus) {
+      prepare(corpus, 2);
+    }
+
+  }
+
+  @State(Scope.Thread)
+  public static class Before40 extends Tree {
+
+    @Setup(Level.Invocation)
+    public void prepare (CorpusState corpus) {
+      prepare(corpus, 3);
+    }
+
+  }
+
+  @Benchmark
+  public TranslationUnit pass20 (Before20 tree) {
+    new Pass20(tree.root).process();
+    return tree.root;
+  }
+
+  @Benchmark
+  public TranslationUnit pass30 (Before30 tree) {
+    new Pass30(tree.root, new TypeTable()).process();
+    return tree.root;
+  }
+
+  @Benchmark
+  public TranslationUnit pass40 (Before40 tree) {
+    new Pass40(tree.root).process();
+    return tree.root;
+  }
+
+}
@@ -1,10 +1,17 @@
 package org.opal;
 
+import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
 
 import java.util.ArrayList;
 import java.util.List;
 
+// Options take their values either as the next argument or after an equals
+// sign, as in "--jobs 4" or "--jobs=4".
+
+@Parameters(separators = "=")
 public class Args {
 
   @Parameter
@@ -21,6 +28,52 @@ public class Args {
     return name;
   }
 
+  @Parameter(
+    names = "--jobs",
+    description = "Number of threads for parsing files and analyzing the package; more than one also types routine bodies in parallel"
+  )
+  private int jobs = Runtime.getRuntime().availableProcessors();
+
+  public int getJobs () {
+    return jobs;
+  }
+
+  // The value of --time-passes is optional, and defaults to a table. Options
+  // without a value can only be booleans, so a --time-passes that is not
+  // followed by a value is given its default value by withDefaultValues
+  // before the arguments are parsed.
+
+  @Parameter(
+    names = "--time-passes",
+    description = "Print the time and memory taken by each phase, as a table or as JSON",
+    converter = FormatConverter.class
+  )
+  private Timings.Format timePasses = null;
+
+  public Timings.Format getTimePasses () {
+    return timePasses;
+  }
+
+  public static String[] withDefaultValues (String[] args) {
+    var expanded = args.clone();
+    for (var i = 0; i < expanded.length; i++)
+      if (expanded[i].equals("--time-passes") && (i + 1 == expanded.length || expanded[i + 1].startsWith("-")))
+        expanded[i] = "--time-passes=table";
+    return expanded;
+  }
+
+  public static class FormatConverter implements IStringConverter<Timings.Format> {
+
+    public Timings.Format convert (String value) {
+      return switch (value) {
+        case "table" -> Timings.Format.TABLE;
+        case "json" -> Timings.Format.JSON;
+        default -> throw new ParameterException("--time-passes must be 'table' or 'json', not '" + value + "'");
+      };
+    }
+
+  }
+
 //  @Parameter (
 //    names = { "-log", "-verbose" },
 //    description = "Level of verbosity"
@@ -7,6 +7,8 @@ import org.opal.ast.expression.*;
 import org.opal.ast.statement.*;
 import org.opal.ast.type.*;
 
+import java.util.EnumSet;
+
 public class BaseVisitor implements Visitor {
 
   AstNode root;
@@ -17,6 +19,42 @@ public class BaseVisitor implements Visitor {
 
   public void process () {}
 
+  // Attributes this pass reads and writes. The pass manager uses these to
+  // order passes and to decide which of them can share a traversal.
+
+  public EnumSet<PassManager.Attribute> reads () {
+    return EnumSet.noneOf(PassManager.Attribute.class);
+  }
+
+  public EnumSet<PassManager.Attribute> writes () {
+    return EnumSet.noneOf(PassManager.Attribute.class);
+  }
+
+  // A fusible pass splits its work into what it does before the top-level
+  // declarations, what it does for each one, and what it does afterwards, so
+  // that the pass manager can walk the declarations once for several passes.
+  // Running the three parts over the whole tree, as traverse() does, is the
+  // same as running the pass on its own.
+
+  public boolean isFusible () {
+    return false;
+  }
+
+  public void begin () {}
+
+  public void visitDeclaration (Declaration node) {
+    node.accept(this);
+  }
+
+  public void end () {}
+
+  protected void traverse () {
+    begin();
+    for (var declaration : ((TranslationUnit)root).getOtherDeclarations().getOtherDeclarations())
+      visitDeclaration(declaration);
+    end();
+  }
+
   // TRANSLATION UNIT
 
   public void visit (TranslationUnit node) {}
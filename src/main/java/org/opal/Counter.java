@@ -2,8 +2,9 @@ package org.opal;
 
 // This class provides a counter that can be initialized with a chosen starting
 // value (which defaults to zero). The counter can only be incremented,
-// decremented, or reset to its initial starting value. The current value of
-// the counter is available through the get() method.
+// decremented, advanced by a given amount, or reset to its initial starting
+// value. The current value of the counter is available through the get()
+// method.
 
 public class Counter {
 
@@ -28,6 +29,10 @@ public class Counter {
     current += 1;
   }
 
+  public void advance (int count) {
+    current += count;
+  }
+
   public void reset () {
     current = start;
   }
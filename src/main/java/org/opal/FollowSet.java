@@ -1,165 +1,38 @@
 package org.opal;
 
-import java.util.EnumSet;
-
 public class FollowSet {
 
-  public static final EnumSet<Token.Kind> TRANSLATION_UNIT = EnumSet.of(Token.Kind.EOF);
-
-  public static final EnumSet<Token.Kind> PACKAGE_DECLARATION = EnumSet.of (
-    Token.Kind.IMPORT,
-    Token.Kind.USE,
-    Token.Kind.PRIVATE,
-    Token.Kind.DEF,
-    Token.Kind.CLASS,
-    Token.Kind.VAR,
-    Token.Kind.VAL,
-    Token.Kind.EOF
-  );
-
-  public static final EnumSet<Token.Kind> IMPORT_DECLARATIONS = EnumSet.of (
-    Token.Kind.USE,
-    Token.Kind.PRIVATE,
-    Token.Kind.CONST,
-    Token.Kind.DEF,
-    Token.Kind.CLASS,
-    Token.Kind.VAR,
-    Token.Kind.VAL,
-    Token.Kind.EOF
-  );
-
-  // Not sure if this ever gets used
-  public static final EnumSet<Token.Kind> IMPORT_DECLARATION = EnumSet.of (
-    Token.Kind.IMPORT,
-    Token.Kind.USE,
-    Token.Kind.PRIVATE,
-    Token.Kind.CONST,
-    Token.Kind.DEF,
-    Token.Kind.CLASS,
-    Token.Kind.VAR,
-    Token.Kind.VAL,
-    Token.Kind.EOF
-  );
-
-  public static final EnumSet<Token.Kind> USE_DECLARATIONS = EnumSet.of (
-    Token.Kind.PRIVATE,
-    Token.Kind.CONST,
-    Token.Kind.DEF,
-    Token.Kind.CLASS,
-    Token.Kind.VAR,
-    Token.Kind.VAL,
-    Token.Kind.EOF
-  );
-
-  public static final EnumSet<Token.Kind> USE_DECLARATION = EnumSet.of (
-    Token.Kind.USE,
-    Token.Kind.PRIVATE,
-    Token.Kind.CONST,
-    Token.Kind.DEF,
-    Token.Kind.CLASS,
-    Token.Kind.VAR,
-    Token.Kind.VAL,
-    Token.Kind.EOF
-  );
-
+  public static final TokenSet TRANSLATION_UNIT = TokenSet.of(Token.Kind.EOF);
 
-  public static final EnumSet<Token.Kind> OTHER_DECLARATIONS = EnumSet.of (
-    Token.Kind.EOF
-  );
+  // A translation unit is a package declaration followed by any number of
+  // import, use, and other declarations, in that order. Since each list may
+  // be empty, what follows one list is the start of the next list or
+  // whatever follows that list in turn, and what follows one declaration is
+  // the start of another one or whatever follows its list.
 
-  public static final EnumSet<Token.Kind> OTHER_DECLARATION = EnumSet.of (
-    Token.Kind.PRIVATE,
-    Token.Kind.CONST,
-    Token.Kind.DEF,
-    Token.Kind.CLASS,
-    Token.Kind.VAR,
-    Token.Kind.VAL,
-    Token.Kind.EOF
-  );
+  public static final TokenSet OTHER_DECLARATIONS =
+    FollowSet.TRANSLATION_UNIT;
 
+  public static final TokenSet OTHER_DECLARATION =
+    TokenSet.union(FirstSet.OTHER_DECLARATION, FollowSet.OTHER_DECLARATIONS);
 
+  public static final TokenSet USE_DECLARATIONS =
+    TokenSet.union(FirstSet.OTHER_DECLARATIONS, FollowSet.OTHER_DECLARATIONS);
 
-  public static final EnumSet<Token.Kind> ARRAY_DECLARATOR =
-    EnumSet.of(Token.Kind.R_PARENTHESIS, Token.Kind.SEMICOLON);
+  public static final TokenSet USE_DECLARATION =
+    TokenSet.union(FirstSet.USE_DECLARATION, FollowSet.USE_DECLARATIONS);
 
+  public static final TokenSet IMPORT_DECLARATIONS =
+    TokenSet.union(FirstSet.USE_DECLARATIONS, FollowSet.USE_DECLARATIONS);
 
-  private static EnumSet<Token.Kind> union (EnumSet<Token.Kind> a, Token.Kind b, Token.Kind c) {
-    var combined = EnumSet.copyOf(a);
-    combined.add(b);
-    combined.add(c);
-    return combined;
-  }
-
-  // Union of two items
-
-  private static EnumSet<Token.Kind> union (
-    EnumSet<Token.Kind> a,
-    Token.Kind b
-  ) {
-    var combined = EnumSet.copyOf(a);
-    combined.add(b);
-    return combined;
-  }
-
-  private static EnumSet<Token.Kind> union (
-    EnumSet<Token.Kind> a,
-    EnumSet<Token.Kind> b
-  ) {
-    var combined = EnumSet.copyOf(a);
-    combined.addAll(b);
-    return combined;
-  }
-
-  // Union of three items
-
-  private static EnumSet<Token.Kind> union (
-    EnumSet<Token.Kind> a,
-    EnumSet<Token.Kind> b,
-    Token.Kind c
-  ) {
-    var combined = EnumSet.copyOf(a);
-    combined.addAll(b);
-    combined.add(c);
-    return combined;
-  }
-
-  private static EnumSet<Token.Kind> union (
-    EnumSet<Token.Kind> a,
-    EnumSet<Token.Kind> b,
-    EnumSet<Token.Kind> c
-  ) {
-    var combined = EnumSet.copyOf(a);
-    combined.addAll(b);
-    combined.addAll(c);
-    return combined;
-  }
-
-  // Union of four items
+  // Not sure if this ever gets used
+  public static final TokenSet IMPORT_DECLARATION =
+    TokenSet.union(FirstSet.IMPORT_DECLARATION, FollowSet.IMPORT_DECLARATIONS);
 
-  private static EnumSet<Token.Kind> union (
-    EnumSet<Token.Kind> a,
-    EnumSet<Token.Kind> b,
-    EnumSet<Token.Kind> c,
-    Token.Kind d
-  ) {
-    var combined = EnumSet.copyOf(a);
-    combined.addAll(b);
-    combined.addAll(c);
-    combined.add(d);
-    return combined;
-  }
+  public static final TokenSet PACKAGE_DECLARATION =
+    TokenSet.union(FirstSet.IMPORT_DECLARATIONS, FollowSet.IMPORT_DECLARATIONS);
 
-  private static EnumSet<Token.Kind> union (
-    EnumSet<Token.Kind> a,
-    EnumSet<Token.Kind> b,
-    EnumSet<Token.Kind> c,
-    EnumSet<Token.Kind> d
-  ) {
-    var combined = EnumSet.copyOf(a);
-    combined.addAll(b);
-    combined.addAll(c);
-    combined.addAll(d);
-    return combined;
-  }
+  public static final TokenSet ARRAY_DECLARATOR =
+    TokenSet.of(Token.Kind.R_PARENTHESIS, Token.Kind.SEMICOLON);
 
 }
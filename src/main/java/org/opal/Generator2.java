@@ -27,9 +27,6 @@ public class Generator2 extends BaseResultVisitor<ST> {
   // Stack for facilitating out-of-order operations
   private final LinkedList<ST> genStack = new LinkedList<>();
 
-  // Stack for keeping track of current node path
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
-
   // Tracks modifier passes
   private int modifiersPass = 0;
 
@@ -51,10 +48,7 @@ public class Generator2 extends BaseResultVisitor<ST> {
   }
 
   public ST visit (AstNode node) {
-    nodePath.push(node);
-    var st = node.accept(this);
-    nodePath.pop();
-    return st;
+    return node.accept(this);
   }
 
   public ST visit (TranslationUnit node) {
@@ -594,7 +588,7 @@ public class Generator2 extends BaseResultVisitor<ST> {
   /*
   public ST visit (ArrayType node) {
     var st = group.getInstanceOf("common/declarator/arrayDeclarator");
-    st.add("cop", nodePath.get(1) instanceof PointerType);
+    st.add("cop", node.getParent() instanceof PointerType);
     st.add("directDeclarator", stack.pop());
     if (node.getChildCount() == 2)
       st.add("expression", visit(node.expression()));
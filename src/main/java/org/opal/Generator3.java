@@ -20,9 +20,6 @@ public class Generator3 extends BaseResultVisitor<ST> {
   // Stack for facilitating out-of-order operations
   private final LinkedList<ST> genStack = new LinkedList<>();
 
-  // Stack for keeping track of current node path
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
-
   public Generator3 (AstNode input) {
     super(input);
     templateDirectoryUrl = this.getClass().getClassLoader().getResource("templates");
@@ -38,10 +35,7 @@ public class Generator3 extends BaseResultVisitor<ST> {
   }
 
   public ST visit (AstNode node) {
-    nodePath.push(node);
-    var st = node.accept(this);
-    nodePath.pop();
-    return st;
+    return node.accept(this);
   }
 
   // To do: We need to accumulate declarations from all translation units into
@@ -24,9 +24,6 @@ public class Generator3a extends BaseResultVisitor<ST> {
   // are processed.
   private final LinkedList<ST> stack = new LinkedList<>();
 
-  // Stack for keeping track of current node path
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
-
   private final int USING_PASS    = 1;
   private final int TYPE_PASS     = 2;
   private final int ROUTINE_PASS  = 3;
@@ -52,13 +49,9 @@ public class Generator3a extends BaseResultVisitor<ST> {
   }
 
   public ST visit (AstNode node) {
-    nodePath.push(node);
-    var st = node.accept(this);
-    nodePath.pop();
-    return st;
+    return node.accept(this);
   }
 
-
   // DECLARATIONS *************************************************************
 
   // OTHER DECLARATIONS
@@ -602,7 +595,7 @@ public class Generator3a extends BaseResultVisitor<ST> {
   /*
   public ST visit (ArrayType node) {
     var st = group.getInstanceOf("common/declarator/arrayDeclarator");
-    st.add("cop", nodePath.get(1) instanceof PointerType);
+    st.add("cop", node.getParent() instanceof PointerType);
     st.add("directDeclarator", stack.pop());
     if (node.getChildCount() == 2)
       st.add("expression", visit(node.expression()));
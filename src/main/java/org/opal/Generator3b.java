@@ -25,9 +25,6 @@ public class Generator3b extends BaseResultVisitor<ST> {
   // are processed.
   private final LinkedList<ST> stack = new LinkedList<>();
 
-  // Stack for keeping track of current node path
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
-
   // Stack for keeping track of current class name
   private final LinkedList<AstNode> classNameStack = new LinkedList<>();
 
@@ -42,10 +39,7 @@ public class Generator3b extends BaseResultVisitor<ST> {
   }
 
   public ST visit (AstNode node) {
-    nodePath.push(node);
-    var st = node.accept(this);
-    nodePath.pop();
-    return st;
+    return node.accept(this);
   }
 
   // DECLARATIONS *************************************************************
@@ -470,7 +464,6 @@ public class Generator3b extends BaseResultVisitor<ST> {
     return st;
   }
 
-
   public ST visit (NewExpression node) {
     var st = group.getInstanceOf("common/expression/newExpression");
     stack.push(emptyDeclarator());
@@ -576,7 +569,7 @@ public class Generator3b extends BaseResultVisitor<ST> {
   /*
   public ST visit (ArrayType node) {
     var st = group.getInstanceOf("common/declarator/arrayDeclarator");
-    st.add("cop", nodePath.get(1) instanceof PointerType);
+    st.add("cop", node.getParent() instanceof PointerType);
     st.add("directDeclarator", stack.pop());
     if (node.getChildCount() == 2)
       st.add("expression", visit(node.expression()));
@@ -0,0 +1,111 @@
+package org.opal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// The keyword table recognizes keywords directly in the source text, given
+// the range of a word, without first copying the word into a string. It is a
+// perfect hash table: at class initialization, a seed is searched for that
+// makes the hash function map each keyword to a slot of its own. A lookup
+// then hashes the word once, and compares it against at most one keyword.
+// Most identifiers are rejected by their length or by that one comparison.
+
+// The keywords themselves come from the forward lookup table, so LookupTable
+// remains the single place where keywords are listed.
+
+public final class KeywordTable {
+
+  private static final char[][] WORDS;
+  private static final Token.Kind[] KINDS;
+  private static final int SEED;
+  private static final int MIN_LENGTH;
+  private static final int MAX_LENGTH;
+
+  static {
+    var keywords = new LookupTable().getForwardLookupTable();
+    var minLength = Integer.MAX_VALUE;
+    var maxLength = 0;
+    for (var keyword : keywords.keySet()) {
+      minLength = Math.min(minLength, keyword.length());
+      maxLength = Math.max(maxLength, keyword.length());
+    }
+    MIN_LENGTH = minLength;
+    MAX_LENGTH = maxLength;
+
+    // Start with twice as many slots as keywords and try a bounded number of
+    // seeds at each size. Larger tables make a perfect hash easier to find.
+    var size = Integer.highestOneBit(keywords.size() * 2 - 1) << 1;
+    var seed = -1;
+    while (seed < 0) {
+      seed = findSeed(keywords, size);
+      if (seed < 0)
+        size *= 2;
+    }
+    SEED = seed;
+    WORDS = new char[size][];
+    KINDS = new Token.Kind[size];
+    for (var entry : keywords.entrySet()) {
+      var word = entry.getKey();
+      var slot = hash(word, 0, word.length(), seed) & (size - 1);
+      WORDS[slot] = word.toCharArray();
+      KINDS[slot] = entry.getValue();
+    }
+  }
+
+  private KeywordTable () {}
+
+  private static int findSeed (Map<String, Token.Kind> keywords, int size) {
+    var taken = new boolean[size];
+    for (var seed = 1; seed < 100_000; seed++) {
+      Arrays.fill(taken, false);
+      var perfect = true;
+      for (var word : keywords.keySet()) {
+        var slot = hash(word, 0, word.length(), seed) & (size - 1);
+        if (taken[slot]) {
+          perfect = false;
+          break;
+        }
+        taken[slot] = true;
+      }
+      if (perfect)
+        return seed;
+    }
+    return -1;
+  }
+
+  // FNV-1a, starting from the seed instead of the usual offset basis
+
+  private static int hash (CharSequence text, int start, int end, int seed) {
+    var hash = seed;
+    for (var i = start; i < end; i++)
+      hash = (hash ^ text.charAt(i)) * 0x01000193;
+    return hash ^ (hash >>> 15);
+  }
+
+  // Returns the kind of the keyword spanning the given range of the text, or
+  // null if the word is not a keyword
+
+  public static Token.Kind lookup (CharSequence text, int start, int end) {
+    var length = end - start;
+    if (length < MIN_LENGTH || length > MAX_LENGTH)
+      return null;
+    var slot = hash(text, start, end, SEED) & (WORDS.length - 1);
+    var word = WORDS[slot];
+    if (word == null || word.length != length)
+      return null;
+    for (var i = 0; i < length; i++)
+      if (word[i] != text.charAt(start + i))
+        return null;
+    return KINDS[slot];
+  }
+
+  // Returns the text of the given keyword kind, or null if it is not a keyword
+
+  public static String getText (Token.Kind kind) {
+    for (var slot = 0; slot < KINDS.length; slot++)
+      if (KINDS[slot] == kind)
+        return new String(WORDS[slot]);
+    return null;
+  }
+
+}
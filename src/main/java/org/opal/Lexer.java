@@ -1,48 +1,79 @@
 package org.opal;
 
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.core.config.Configurator;
+import org.opal.error.Diagnostics;
 import org.opal.error.LexicalError;
+import org.opal.symbol.IdentifierTable;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
+
+// Characters are classified through a 128-entry table for the ASCII range,
+// which covers nearly all source text. Only characters outside it fall back
+// to the Unicode-aware methods of Character, which are far more expensive
+// than a single array load. Punctuators are dispatched on directly by a
+// switch over the current character, which compiles to a jump table.
 
 public class Lexer {
 
   private final int SLEEP_TIME = 100;
 
+  // Character classes of the ASCII range
+  private static final byte OTHER  = 0;
+  private static final byte LETTER = 1;
+  private static final byte DIGIT  = 2;
+
+  private static final byte[] CHAR_CLASS = new byte[128];
+
+  static {
+    for (var ch = 'A'; ch <= 'Z'; ch++)
+      CHAR_CLASS[ch] = LETTER;
+    for (var ch = 'a'; ch <= 'z'; ch++)
+      CHAR_CLASS[ch] = LETTER;
+    CHAR_CLASS['_'] = LETTER;
+    for (var ch = '0'; ch <= '9'; ch++)
+      CHAR_CLASS[ch] = DIGIT;
+  }
+
   private static final Logger LOGGER = LogManager.getLogger();
 
-  private final List<String> sourceLines;
+  private final SourceFile source;
+
+  private final Diagnostics diagnostics;
 
   private final char EOF = (char)(-1);
 
-  private String input = null;
+  // The lexer scans raw UTF-8 bytes, so positions are byte offsets
+  private final Utf8Source input;
   private char current = EOF;
 
+  // Lines and columns are not tracked here. The lexer records where each
+  // line starts in the source file, from which both are derived on demand.
   private final Counter position = new Counter();
-  private final Counter line     = new Counter(1);
-  private final Counter column   = new Counter(1);
 
   private final Marker markPosition = new Marker();
-  private final Marker markColumn   = new Marker();
 
-  private final HashMap<String, Token.Kind> keywordLookup;
+  // Tokens are appended here as they are recognized
+  private TokenBuffer tokens = null;
 
-  public Lexer (String input, List<String> sourceLines) {
-    this.input = input;
-    if (!input.isEmpty())
-      current = input.charAt(0);
-    this.sourceLines = sourceLines;
-    var lookupTable = new LookupTable();
-    keywordLookup = lookupTable.getForwardLookupTable();
+  // Words are interned here as they are scanned
+  private final IdentifierTable identifiers;
+
+  // Identifier id of each keyword seen so far, indexed by token kind
+  private final int[] keywordIds = new int[Token.Kind.values().length];
+
+  public Lexer (SourceFile source) {
+    this(source, new Diagnostics(), new IdentifierTable());
+  }
 
-    // Set up logging
-    var level = Level.INFO;
-    Configurator.setRootLevel(level);
+  public Lexer (SourceFile source, Diagnostics diagnostics, IdentifierTable identifiers) {
+    this.source = source;
+    input = source.getText();
+    this.diagnostics = diagnostics;
+    this.identifiers = identifiers;
+    if (input.length() > 0)
+      current = input.charAt(0);
+    Arrays.fill(keywordIds, TokenBuffer.NO_ID);
   }
 
   private void consume () {
@@ -51,38 +82,110 @@ public class Lexer {
       current = input.charAt(position.get());
     else
       current = EOF;
-    column.increment();
+  }
+
+  // Moves forward to the given position. The source finds the end of runs of
+  // characters that need no individual attention, such as blanks and comment
+  // text, several bytes at a time, and the lexer then skips the whole run.
+
+  private void skipTo (int index) {
+    position.advance(index - position.get());
+    current = index < input.length() ? input.charAt(index) : EOF;
   }
 
   private void backup () {
     position.decrement();
     current = input.charAt(position.get());
-    column.decrement();
+  }
+
+  // Called after consuming a line feed, when the current position is the
+  // start of the next line
+
+  private void newLine () {
+    source.addLine(position.get());
+  }
+
+  // Continuation bytes are the second and subsequent bytes of a multi-byte
+  // UTF-8 sequence
+
+  private static boolean isContinuation (char ch) {
+    return (ch & 0xC0) == 0x80;
   }
 
   private void mark () {
     markPosition.set(position.get());
-    markColumn.set(column.get());
   }
 
   private void error (String message) {
-    System.out.println(new LexicalError(sourceLines, message, line.get(), column.get()));
+    diagnostics.add(new LexicalError(source, message, position.get()));
   }
 
-  public LinkedList<Token> process () {
-    var tokens = new LinkedList<Token>();
-    var token = getToken();
-    tokens.addLast(token);
-    while (token.getKind() != Token.Kind.EOF) {
-      token = getToken();
-      tokens.addLast(token);
-    }
+  // Scans the whole input up front and returns a complete token stream
+
+  public TokenStream process () {
+    tokens = new TokenBuffer(source, identifiers);
+    var kind = getToken();
+    while (kind != Token.Kind.EOF)
+      kind = getToken();
+    return new TokenStream(tokens);
+  }
+
+  // Returns a token stream that pulls tokens from this lexer as the parser
+  // asks for them, rather than scanning the whole input first
+
+  public TokenStream stream () {
+    return new TokenStream(this);
+  }
+
+  // Sets up the buffer that subsequent calls to next() append to. The buffer
+  // starts out with room for the given number of tokens.
+
+  TokenBuffer start (int capacity) {
+    tokens = new TokenBuffer(source, capacity, identifiers);
     return tokens;
   }
 
-  private Token getToken () {
+  // Scans the next token, appends it to the buffer, and returns its kind.
+  // Once the input is exhausted, every call yields another EOF token.
+
+  Token.Kind next () {
+    return getToken();
+  }
+
+  // Keywords have identifier ids too, since some of them (e.g. the names of
+  // primitive types) are resolved like identifiers. The id of each keyword is
+  // looked up once per lexer and cached here, indexed by kind.
+
+  private int keywordId (Token.Kind kind) {
+    var id = keywordIds[kind.ordinal()];
+    if (id == TokenBuffer.NO_ID) {
+      id = identifiers.intern(KeywordTable.getText(kind));
+      keywordIds[kind.ordinal()] = id;
+    }
+    return id;
+  }
+
+  // Appends a token spanning from the given start position up to the current
+  // position. The lexeme is not copied out of the input.
+
+  private Token.Kind emit (Token.Kind kind, int start) {
+    return emit(kind, start, TokenBuffer.NO_ID);
+  }
+
+  private Token.Kind emit (Token.Kind kind, int start, int id) {
+    tokens.add(kind, start, position.get() - start, id);
+    return kind;
+  }
+
+  // Numeric literals are added along with their value
+
+  private Token.Kind emitLiteral (Token.Kind kind, int start, long value) {
+    tokens.addLiteral(kind, start, position.get() - start, value);
+    return kind;
+  }
+
+  private Token.Kind getToken () {
     Token.Kind kind = null;
-    String lexeme = "";
 
     while (current != EOF) {
 
@@ -93,1140 +196,511 @@ public class Lexer {
 //        throw new RuntimeException(e);
 //      }
 
-      if (current == '=') {
-        mark();
-        consume();
-        if (current == '=') {
+      switch (current) {
+        case '=' -> {
+          mark();
           consume();
-          kind = Token.Kind.EQUAL_EQUAL;
-          lexeme = "==";
-        } else {
-          kind = Token.Kind.EQUAL;
-          lexeme = "=";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.EQUAL_EQUAL;
+          } else {
+            kind = Token.Kind.EQUAL;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '|') {
-        mark();
-        consume();
-        if (current == '|') {
-          consume();
-          kind = Token.Kind.BAR_BAR;
-          lexeme = "||";
-        } else if (current == '=') {
+        case '|' -> {
+          mark();
           consume();
-          kind = Token.Kind.BAR_EQUAL;
-          lexeme = "|=";
-        } else {
-          kind = Token.Kind.BAR;
-          lexeme = "|";
+          if (current == '|') {
+            consume();
+            kind = Token.Kind.BAR_BAR;
+          } else if (current == '=') {
+            consume();
+            kind = Token.Kind.BAR_EQUAL;
+          } else {
+            kind = Token.Kind.BAR;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '^') {
-        mark();
-        consume();
-        if (current == '=') {
+        case '^' -> {
+          mark();
           consume();
-          kind = Token.Kind.CARET_EQUAL;
-          lexeme = "^=";
-        } else {
-          kind = Token.Kind.CARET;
-          lexeme = "^";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.CARET_EQUAL;
+          } else {
+            kind = Token.Kind.CARET;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '&') {
-        mark();
-        consume();
-        if (current == '&') {
-          consume();
-          kind = Token.Kind.AMPERSAND_AMPERSAND;
-          lexeme = "&&";
-        } else if (current == '=') {
+        case '&' -> {
+          mark();
           consume();
-          kind = Token.Kind.AMPERSAND_EQUAL;
-          lexeme = "&=";
-        } else {
-          kind = Token.Kind.AMPERSAND;
-          lexeme = "&";
+          if (current == '&') {
+            consume();
+            kind = Token.Kind.AMPERSAND_AMPERSAND;
+          } else if (current == '=') {
+            consume();
+            kind = Token.Kind.AMPERSAND_EQUAL;
+          } else {
+            kind = Token.Kind.AMPERSAND;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '>') {
-        mark();
-        consume();
-        if (current == '>') {
+        case '>' -> {
+          mark();
           consume();
-          if (current == '=') {
+          if (current == '>') {
             consume();
-            kind = Token.Kind.GREATER_GREATER_EQUAL;
-            lexeme = ">>=";
+            if (current == '=') {
+              consume();
+              kind = Token.Kind.GREATER_GREATER_EQUAL;
+            } else {
+              kind = Token.Kind.GREATER_GREATER;
+            }
+          } else if (current == '=') {
+            consume();
+            kind = Token.Kind.GREATER_EQUAL;
           } else {
-            kind = Token.Kind.GREATER_GREATER;
-            lexeme = ">>";
+            kind = Token.Kind.GREATER;
           }
-        } else if (current == '=') {
-          consume();
-          kind = Token.Kind.GREATER_EQUAL;
-          lexeme = ">=";
-        } else {
-          kind = Token.Kind.GREATER;
-          lexeme = ">";
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '<') {
-        mark();
-        consume();
-        if (current == '<') {
+        case '<' -> {
+          mark();
           consume();
-          if (current == '=') {
+          if (current == '<') {
+            consume();
+            if (current == '=') {
+              consume();
+              kind = Token.Kind.LESS_LESS_EQUAL;
+            } else {
+              kind = Token.Kind.LESS_LESS;
+            }
+          } else if (current == '=') {
             consume();
-            kind = Token.Kind.LESS_LESS_EQUAL;
-            lexeme = "<<=";
+            kind = Token.Kind.LESS_EQUAL;
           } else {
-            kind = Token.Kind.LESS_LESS;
-            lexeme = "<<";
+            kind = Token.Kind.LESS;
           }
-        } else if (current == '=') {
-          consume();
-          kind = Token.Kind.LESS_EQUAL;
-          lexeme = "<=";
-        } else {
-          kind = Token.Kind.LESS;
-          lexeme = "<";
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '+') {
-        mark();
-        consume();
-        if (current == '=') {
+        case '+' -> {
+          mark();
           consume();
-          kind = Token.Kind.PLUS_EQUAL;
-          lexeme = "+=";
-        } else {
-          kind = Token.Kind.PLUS;
-          lexeme = "+";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.PLUS_EQUAL;
+          } else {
+            kind = Token.Kind.PLUS;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '-') {
-        mark();
-        consume();
-        if (current == '>') {
-          consume();
-          kind = Token.Kind.MINUS_GREATER;
-          lexeme = "->";
-        } else if (current == '=') {
+        case '-' -> {
+          mark();
           consume();
-          kind = Token.Kind.MINUS_EQUAL;
-          lexeme = "-=";
-        } else {
-          kind = Token.Kind.MINUS;
-          lexeme = "-";
+          if (current == '>') {
+            consume();
+            kind = Token.Kind.MINUS_GREATER;
+          } else if (current == '=') {
+            consume();
+            kind = Token.Kind.MINUS_EQUAL;
+          } else {
+            kind = Token.Kind.MINUS;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '*') {
-        mark();
-        consume();
-        if (current == '=') {
+        case '*' -> {
+          mark();
           consume();
-          kind = Token.Kind.ASTERISK_EQUAL;
-          lexeme = "*=";
-        } else {
-          kind = Token.Kind.ASTERISK;
-          lexeme = "*";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.ASTERISK_EQUAL;
+          } else {
+            kind = Token.Kind.ASTERISK;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      // To do: Need to account for comments
-      else if (current == '/') {
-        mark();
-        consume();
-        if (current == '=') {
-          consume();
-          kind = Token.Kind.SLASH_EQUAL;
-          lexeme = "/=";
-          return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-        } else if (current == '*') {
-          // Block comment
+        // To do: Need to account for comments
+        case '/' -> {
+          mark();
           consume();
-          var commentDone = false;
-          while (!commentDone) {
-            while (current != '*' && current != EOF) {
-              if (current == '\n') {
-                // Skip line feeds(LF)
-                consume();
-                line.increment();
-                column.reset();
-              } else if (current =='\r') {
-                // Skip carriage return +line feed(CR + LF) pairs
-                consume();
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.SLASH_EQUAL;
+            return emit(kind, markPosition.get());
+          } else if (current == '*') {
+            // Block comment
+            consume();
+            var commentDone = false;
+            while (!commentDone) {
+              while (current != '*' && current != EOF) {
                 if (current == '\n') {
+                  // Skip line feeds(LF)
+                  consume();
+                  newLine();
+                } else if (current =='\r') {
+                  // Skip carriage return +line feed(CR + LF) pairs
                   consume();
-                  line.increment();
-                  column.reset();
-                } else {
-                  // Found carriage return (CR) by itself, which is invalid
-                  System.out.println("error: invalid line ending");
-                }
-              } else
+                  if (current == '\n') {
+                    consume();
+                    newLine();
+                  } else {
+                    // Found carriage return (CR) by itself, which is invalid
+                    System.out.println("error: invalid line ending");
+                  }
+                } else
+                  skipTo(input.skipCommentText(position.get()));
+              }
+              while (current == '*')
                 consume();
+              if (current == '/') {
+                consume();
+                commentDone = true;
+              } else if (current == EOF) {
+                // Error - comment not closed
+                System.out.println("error: comment not closed");
+                commentDone = true;
+              }
             }
-            while (current == '*')
-              consume();
-            if (current == '/') {
-              consume();
-              commentDone = true;
-            } else if (current == EOF) {
-              // Error - comment not closed
-              System.out.println("error: comment not closed");
-              commentDone = true;
-            }
-          }
-        } else if (current == '/') {
-          // Line comment
-          do {
+          } else if (current == '/') {
+            // Line comment
             consume();
-          } while (current != '\n' && current != '\r' && current != EOF);
-        } else {
-          kind = Token.Kind.SLASH;
-          lexeme = "/";
-          return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
+            skipTo(input.skipLine(position.get()));
+          } else {
+            kind = Token.Kind.SLASH;
+            return emit(kind, markPosition.get());
+          }
         }
-      }
 
-      else if (current == '%') {
-        mark();
-        consume();
-        if (current == '=') {
+        case '%' -> {
+          mark();
           consume();
-          kind = Token.Kind.PERCENT_EQUAL;
-          lexeme = "%=";
-        } else {
-          kind = Token.Kind.PERCENT;
-          lexeme = "%";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.PERCENT_EQUAL;
+          } else {
+            kind = Token.Kind.PERCENT;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '!') {
-        mark();
-        consume();
-        if (current == '=') {
-          consume();
-          kind = Token.Kind.EXCLAMATION_EQUAL;
-          lexeme = "!=";
-        } else if (current == '<') {
+        case '!' -> {
+          mark();
           consume();
-          kind = Token.Kind.EXCLAMATION_LESS;
-          lexeme = "!<";
-        } else {
-          kind = Token.Kind.EXCLAMATION;
-          lexeme = "!";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.EXCLAMATION_EQUAL;
+          } else if (current == '<') {
+            consume();
+            kind = Token.Kind.EXCLAMATION_LESS;
+          } else {
+            kind = Token.Kind.EXCLAMATION;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '~') {
-        mark();
-        consume();
-        if (current == '=') {
+        case '~' -> {
+          mark();
           consume();
-          kind = Token.Kind.TILDE_EQUAL;
-          lexeme = "~=";
-        } else {
-          kind = Token.Kind.TILDE;
-          lexeme = "~";
+          if (current == '=') {
+            consume();
+            kind = Token.Kind.TILDE_EQUAL;
+          } else {
+            kind = Token.Kind.TILDE;
+          }
+          return emit(kind, markPosition.get());
         }
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '"') {
-        // String
-        final var beginPosition = position.get();
-        consume();
-        while (current != '"' && current != EOF) {
-          // Might need to put some logic in here to increment line
-          // number and reset position if (a newline is encountered
+        case '"' -> {
+          // String
+          mark();
           consume();
+          while (current != '"' && current != EOF) {
+            // Might need to put some logic in here to increment line
+            // number and reset position if (a newline is encountered
+            consume();
+          }
+          if (current == '"') {
+            consume();
+            return emit(Token.Kind.STRING_LITERAL, markPosition.get());
+          } else if (current == EOF) {
+            // To do: probably should pretend terminator is there and return token
+            System.out.println("error: missing string terminator");
+          }
         }
-        if (current == '"') {
+
+        case '\'' -> {
+          // Character
+          mark();
           consume();
-          final var value = input.substring(beginPosition, position.get());
-          return new Token(Token.Kind.STRING_LITERAL, value, position.get(), line.get(), column.get());
-        } else if (current == EOF) {
-          // To do: probably should pretend terminator is there and return token
-          System.out.println("error: missing string terminator");
+          while (current != '\'' && current != EOF) {
+            // Might need to put some logic in here to increment line
+            // number and reset position if (a newline is encountered
+            consume();
+          }
+          if (current == '\'') {
+            consume();
+            return emit(Token.Kind.CHARACTER_LITERAL, markPosition.get());
+          } else if (current == EOF) {
+            // To) {: probably should pretend terminator is there and return token
+            System.out.println("error: missing character terminator");
+          }
         }
-      }
 
-      else if (current == '\'') {
-        // Character
-        final var beginPosition = position.get();
-        consume();
-        while (current != '\'' && current != EOF) {
-          // Might need to put some logic in here to increment line
-          // number and reset position if (a newline is encountered
+        case ':' -> {
+          mark();
           consume();
+          return emit(Token.Kind.COLON, markPosition.get());
         }
-        if (current == '\'') {
+
+        case ';' -> {
+          mark();
           consume();
-          final var value = input.substring(beginPosition, position.get());
-          return new Token(Token.Kind.CHARACTER_LITERAL, value, position.get(), line.get(), column.get());
-        } else if (current == EOF) {
-          // To) {: probably should pretend terminator is there and return token
-          System.out.println("error: missing character terminator");
+          return emit(Token.Kind.SEMICOLON, markPosition.get());
         }
-      }
-
-      else if (current == ':') {
-        mark();
-        consume();
-        return new Token(Token.Kind.COLON, ":", markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == ';') {
-        mark();
-        consume();
-        return new Token(Token.Kind.SEMICOLON, ";", markPosition.get(), line.get(), markColumn.get());
-      }
-
-      else if (current == '.') {
-        mark();
-        consume();
-        if (current == '.') {
+        case '.' -> {
+          mark();
           consume();
-          return new Token(Token.Kind.PERIOD_PERIOD, "..", markPosition.get(), line.get(), markColumn.get());
-        } else if (Character.isDigit(current)) {
-          return number();
-        } else {
-          return new Token(Token.Kind.PERIOD, ".", markPosition.get(), line.get(), markColumn.get());
+          if (current == '.') {
+            consume();
+            return emit(Token.Kind.PERIOD_PERIOD, markPosition.get());
+          } else if (isDigit(current)) {
+            backup();
+            return number(State.NUM_START, 10);
+          } else {
+            return emit(Token.Kind.PERIOD, markPosition.get());
+          }
         }
-      }
-
-      else if (current == ',') {
-        mark();
-        consume();
-        return new Token(Token.Kind.COMMA, ",", markPosition.get(), line.get(), markColumn.get());
-      }
-
-      else if (current == '{') {
-        mark();
-        consume();
-        return new Token(Token.Kind.L_BRACE, "{", markPosition.get(), line.get(), markColumn.get());
-      }
-
-      else if (current == '}') {
-        mark();
-        consume();
-        return new Token(Token.Kind.R_BRACE, "}", markPosition.get(), line.get(), markColumn.get());
-      }
 
-      else if (current == '[') {
-        mark();
-        consume();
-        return new Token(Token.Kind.L_BRACKET, "[", markPosition.get(), line.get(), markColumn.get());
-      }
+        case ',' -> {
+          mark();
+          consume();
+          return emit(Token.Kind.COMMA, markPosition.get());
+        }
 
-      else if (current == ']') {
-        mark();
-        consume();
-        return new Token(Token.Kind.R_BRACKET, "]", markPosition.get(), line.get(), markColumn.get());
-      }
+        case '{' -> {
+          mark();
+          consume();
+          return emit(Token.Kind.L_BRACE, markPosition.get());
+        }
 
-      else if (current == '(') {
-        mark();
-        consume();
-        return new Token(Token.Kind.L_PARENTHESIS, "(", markPosition.get(), line.get(), markColumn.get());
-      }
+        case '}' -> {
+          mark();
+          consume();
+          return emit(Token.Kind.R_BRACE, markPosition.get());
+        }
 
-      else if (current == ')') {
-        mark();
-        consume();
-        return new Token(Token.Kind.R_PARENTHESIS, ")", markPosition.get(), line.get(), markColumn.get());
-      }
+        case '[' -> {
+          mark();
+          consume();
+          return emit(Token.Kind.L_BRACKET, markPosition.get());
+        }
 
-      else if (current == '0') {
-        consume();
-        if (current == 'b') {
-          backup();
-          return binaryInteger();
-        } else if (current == 'o') {
-          backup();
-          return octalInteger();
-        } else if (current == 'x') {
-          backup();
-          return hexadecimalNumber();
-        } else {
-          backup();
-          return number();
+        case ']' -> {
+          mark();
+          consume();
+          return emit(Token.Kind.R_BRACKET, markPosition.get());
         }
-      }
 
-      else if (current == ' ' || current == '\t') {
-        // Skip spaces and tabs
-        while (current == ' ' || current == '\t') {
+        case '(' -> {
+          mark();
           consume();
+          return emit(Token.Kind.L_PARENTHESIS, markPosition.get());
         }
-      }
 
-      else if (current == '\n') {
-        // Skip line feed (LF) characters
-        while (current == '\n') {
+        case ')' -> {
+          mark();
           consume();
-          line.increment();
-          column.reset();
+          return emit(Token.Kind.R_PARENTHESIS, markPosition.get());
         }
-      }
 
-      else if (current == '\r') {
-        // skip carriage return + line feed (CR+LF) pairs
-        while (current == '\r') {
+        case '0' -> {
           consume();
-          if (current == '\n') {
-            consume();
-            line.increment();
-            column.reset();
-          } else {
-            // Should return error token here maybe
-            // Found carriage return by itself, which is invalid (except on mac?)
-            System.out.println("error: invalid line ending");
+          if (current == 'b') {
+            backup();
+            return number(State.BIN_START, 2);
+          } else if (current == 'o') {
+            backup();
+            return number(State.OCT_START, 8);
+          } else if (current == 'x') {
+            backup();
+            return number(State.HEX_START, 16);
+          } else {
+            backup();
+            return number(State.NUM_START, 10);
           }
         }
-      }
 
-      else if (Character.isLetter(current) || current == '_') {
-        mark();
-        do {
-          consume();
-        } while ((position.get() < input.length()) && (Character.isLetter(current) || Character.isDigit(current) || current == '_'));
-        // End index of slice is excluded from result
-        lexeme = input.substring(markPosition.get(), position.get());
-        if (keywordLookup.containsKey(lexeme))
-          kind = keywordLookup.get(lexeme);
-        else
-          kind = Token.Kind.IDENTIFIER;
-        return new Token(kind, lexeme, markPosition.get(), line.get(), markColumn.get());
-      }
+        case ' ', '\t' -> {
+          // Skip spaces and tabs
+          skipTo(input.skipBlanks(position.get()));
+        }
 
-      else if (Character.isDigit(current)) {
-        return number();
-      }
+        case '\n' -> {
+          // Skip line feed (LF) characters
+          while (current == '\n') {
+            consume();
+            newLine();
+          }
+        }
 
-      else {
-        // Should we just skip this or create an error token out of it and pass it to the parser?
-        error("invalid character: found '" + current + "', expected character in source character set");
-        consume();
+        case '\r' -> {
+          // skip carriage return + line feed (CR+LF) pairs
+          while (current == '\r') {
+            consume();
+            if (current == '\n') {
+              consume();
+              newLine();
+            } else {
+              // Should return error token here maybe
+              // Found carriage return by itself, which is invalid (except on mac?)
+              System.out.println("error: invalid line ending");
+            }
+          }
+        }
+
+        default -> {
+          if (isIdentifierStart()) {
+            mark();
+            var ascii = current < 128;
+            do {
+              consume();
+              skipTo(input.skipWord(position.get()));
+              ascii &= current < 128 || current == EOF;
+            } while ((position.get() < input.length()) && isIdentifierPart());
+            // Keywords are recognized in place. Identifiers are interned, which
+            // only copies the word out of the input the first time it is seen.
+            // Keywords are all ASCII, and the rare word that is not must be
+            // decoded before it can be interned.
+            if (!ascii) {
+              var name = input.subSequence(markPosition.get(), position.get()).toString();
+              return emit(Token.Kind.IDENTIFIER, markPosition.get(), identifiers.intern(name));
+            }
+            var keyword = KeywordTable.lookup(input, markPosition.get(), position.get());
+            if (keyword != null)
+              return emit(keyword, markPosition.get(), keywordId(keyword));
+            var id = identifiers.intern(input, markPosition.get(), position.get());
+            return emit(Token.Kind.IDENTIFIER, markPosition.get(), id);
+          } else if (isDigit(current)) {
+            return number(State.NUM_START, 10);
+          } else {
+            // Should we just skip this or create an error token out of it and pass it to the parser?
+            var found = current < 128 ? String.valueOf(current) : Character.toString(input.codePointAt(position.get()));
+            error("invalid character: found '" + found + "', expected character in source character set");
+            do {
+              consume();
+            } while (isContinuation(current));
+          }
+        }
       }
     }
 
     // Placeholder to avoid error
-    return new Token(Token.Kind.EOF, "<EOF>", position.get(), line.get(), column.get());
+    return emit(Token.Kind.EOF, position.get());
   }
 
-  private boolean isBinaryDigit (char ch) {
-    return ch == '0' || ch == '1';
-  }
+  // The underscore counts as a letter. Outside the ASCII range, the current
+  // character is only the first byte of a UTF-8 sequence, so the code point
+  // has to be decoded before it can be classified. Within a word, the
+  // remaining bytes of a character already accepted are accepted as well.
 
-  private boolean isOctalDigit (char ch) {
-    return ch >= '0' && ch <= '7';
+  private boolean isIdentifierStart () {
+    if (current < 128)
+      return CHAR_CLASS[current] == LETTER;
+    return current != EOF && Character.isLetter(input.codePointAt(position.get()));
   }
 
-  private boolean isDecimalDigit (char ch) {
-    return ch >= '0' && ch <= '9';
+  private boolean isIdentifierPart () {
+    if (current < 128)
+      return CHAR_CLASS[current] != OTHER;
+    if (current == EOF)
+      return false;
+    return isContinuation(current) || Character.isLetterOrDigit(input.codePointAt(position.get()));
   }
 
-  private boolean isHexadecimalDigit (char ch) {
-    return (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'F') || (ch >= 'a' && ch <= 'f');
+  private static boolean isDigit (char ch) {
+    return ch < 128 && CHAR_CLASS[ch] == DIGIT;
   }
 
-  private Token binaryInteger () {
-    // Note: We arrive at this function after lookahead or
-    // backtracking, so we really should never fail to match the '0b'
-    // portion, unless there is a bug in this program.
-    final var beginPosition = position.get();
-    var state = State.BIN_START;
-    Token token = null;
-    while (token == null) {
+  // Scans a numeric literal by running the automaton in NumberTable from the
+  // given start state. Integer values are accumulated digit by digit as the
+  // literal is scanned, so that later passes never have to parse lexemes.
+  // Floating point values are converted once the whole literal has been seen,
+  // since correct rounding depends on all of its digits.
 
-      switch (state) {
-        case State.BIN_START:
-          if (current == '0') {
-            consume();
-            state = State.BIN_100;
-          } else
-            state = State.BIN_ERROR;
-          break;
-        case State.BIN_100:
-          if (current == 'b') {
-            consume();
-            state = State.BIN_200;
-          } else
-            state = State.BIN_ERROR;
-          break;
-        case State.BIN_200:
+  private Token.Kind number (State start, int radix) {
+    final var beginPosition = position.get();
+    final var limit = Long.divideUnsigned(-1L, radix);
+    var state = start.ordinal();
+    var value = 0L;
+    var overflow = false;
+    while (true) {
+      var next = NumberTable.next(state, current);
+      if (next >= 0) {
+        var digit = NumberTable.digitValue(current);
+        if (digit >= 0 && digit < radix) {
+          var shifted = value * radix;
+          overflow |= Long.compareUnsigned(value, limit) > 0;
+          value = shifted + digit;
+          overflow |= Long.compareUnsigned(value, shifted) < 0;
+        }
+        consume();
+        state = next;
+      } else if (NumberTable.accepts(state) != null) {
+        break;
+      } else {
+        // Pretend we got what was expected for error recovery purposes
+        var recovery = NumberTable.recovery(state);
+        if (recovery < 0)
+          throw new IllegalStateException("invalid number state " + State.values()[state]);
+        error("invalid number: found '" + current + "', expected " + NumberTable.expected(state));
+        if (NumberTable.recoveryConsumes(state) && current != EOF)
           consume();
-          if (isBinaryDigit(current)) {
-            consume();
-            state = State.BIN_400;
-          } else if (current == '_') {
-            consume();
-            state = State.BIN_300;
-          } else {
-            // Pretend we got a digit or underscore for error recovery purposes
-            error("invalid number: found '" + current + "', expected binary digit or underscore");
-            consume();
-            state = State.BIN_400;
-          }
-          break;
-        case State.BIN_300:
-          if (isBinaryDigit(current)) {
-            consume();
-            state = State.BIN_400;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current +"', expected binary digit");
-            consume();
-            state = State.BIN_400;
-          }
-          break;
-        case State.BIN_400:
-          if (isBinaryDigit(current)) {
-            consume();
-          } else if (current == '_') {
-            consume();
-            state = State.BIN_500;
-          } else if (current == 'L') {
-            consume();
-            state = State.BIN_600;
-          } else if (current == 'u') {
-            consume();
-            state = State.BIN_700;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.BINARY_INT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.BIN_500:
-          if (isBinaryDigit(current)) {
-            consume();
-            state = State.BIN_400;
-          } else if (current == 'L') {
-            consume();
-            state = State.BIN_600;
-          } else if (current == 'u') {
-            consume();
-            state = State.BIN_700;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected binary digit");
-            consume();
-            state = State.BIN_400;
-          }
-          break;
-        case State.BIN_600:
-          if (current == 'u') {
-            consume();
-            state = State.BIN_800;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.BINARY_INT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.BIN_700:
-          if (current == 'L') {
-            consume();
-            state = State.BIN_800;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.BINARY_UINT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.BIN_800:
-          // Accept
-          final var lexeme = input.substring(beginPosition, position.get());
-          token = new Token(Token.Kind.BINARY_UINT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          break;
-        default:
-          // Invalid state. Can only be reached through a lexer bug.
-          System.out.println("error: Invalid state.");
-          break;
+        state = recovery;
       }
     }
-    return token;
+    var kind = NumberTable.accepts(state);
+    if (isFloatingPoint(kind))
+      value = Double.doubleToRawLongBits(floatingPointValue(kind, beginPosition));
+    else if (overflow)
+      error("invalid number: value does not fit in 64 bits");
+    return emitLiteral(kind, beginPosition, value);
   }
 
-  private Token octalInteger () {
-    // Note: We arrive at this function after lookahead or
-    // backtracking, so we really should never fail to match the '0o'
-    // portion, unless there is a bug in this program.
-    final var beginPosition = position.get();
-    var state = State.OCT_START;
-    Token token = null;
-    while (token == null) {
-      switch (state) {
-        case State.OCT_START:
-          if (current == '0') {
-            consume();
-            state = State.OCT_100;
-          } else
-            state = State.OCT_ERROR;
-          break;
-        case State.OCT_100:
-          if (current == 'o') {
-            consume();
-            state = State.OCT_200;
-          } else
-            state = State.OCT_ERROR;
-          break;
-        case State.OCT_200:
-          if (isOctalDigit(current)) {
-            consume();
-            state = State.OCT_400;
-          } else if (current == '_') {
-            consume();
-            state = State.OCT_300;
-          } else {
-            // Pretend we got a digit or underscore for error recovery purposes
-            error("invalid number: found '" + current + "', expected octal digit or underscore");
-            consume();
-            state = State.OCT_400;
-          }
-          break;
-        case State.OCT_300:
-          if (isOctalDigit(current)) {
-            consume();
-            state = State.OCT_400;
-          }
-          break;
-        case State.OCT_400:
-          if (isOctalDigit(current)) {
-            consume();
-          } else if (current == '_') {
-            consume();
-            state = State.OCT_500;
-          } else if (current == 'L') {
-            consume();
-            state = State.OCT_600;
-          } else if (current == 'u') {
-            consume();
-            state = State.OCT_700;
-          } else {
-            // Accept
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.OCTAL_INT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.OCT_500:
-          if (isOctalDigit(current)) {
-            consume();
-            state = State.OCT_400;
-          } else if (current == 'L') {
-            consume();
-            state = State.OCT_600;
-          } else if (current == 'u') {
-            consume();
-            state = State.OCT_700;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected octal digit");
-            consume();
-            state = State.OCT_400;
-          }
-          break;
-        case State.OCT_600:
-          if (current == 'u') {
-            consume();
-            state = State.OCT_800;
-          } else {
-            // Accept
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.OCTAL_INT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.OCT_700:
-          if (current == 'L') {
-            consume();
-            state = State.OCT_800;
-          } else {
-            // Accept
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.OCTAL_UINT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.OCT_800:
-          // Accept
-          final var lexeme = input.substring(beginPosition, position.get());
-          token = new Token(Token.Kind.OCTAL_UINT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          break;
-        default:
-          // Invalid state. Can only be reached through a lexer bug.
-          System.out.println("error: Invalid state.");
-          break;
-      }
-    }
-    return token;
+  private static boolean isFloatingPoint (Token.Kind kind) {
+    return switch (kind) {
+      case FLOAT32_LITERAL, FLOAT64_LITERAL, HEXADECIMAL_FLOAT32_LITERAL, HEXADECIMAL_FLOAT64_LITERAL -> true;
+      default -> false;
+    };
   }
 
-  private Token hexadecimalNumber () {
-    // This scans for a hexadecimal integer or floating point number.
-    final var beginPosition = position.get();
-    var state = State.HEX_START;
-    Token token = null;
-    while (token == null) {
-      switch (state) {
-        case State.HEX_START:
-          if (current == '0') {
-            consume();
-            state = State.HEX_10;
-          } else
-            state = State.HEX_ERROR;
-          break;
-        case State.HEX_10:
-          if (current == 'x') {
-            consume();
-            state = State.HEX_20;
-          } else {
-            state = State.HEX_ERROR;
-          }
-          break;
-        case State.HEX_20:
-          if (isHexadecimalDigit(current)) {
-            consume();
-            state = State.HEX_100;
-          } else if (current == '_') {
-            consume();
-            state = State.HEX_30;
-          } else if (current == '.') {
-            consume();
-            state = State.HEX_300;
-          } else {
-            // Pretend we got a digit, dot, or underscore for error recovery purposes
-            error("invalid number: found '" + current + "', expected hexadecimal digit, dot, or underscore");
-            consume();
-            state = State.HEX_100;
-          }
-          break;
-        case State.HEX_30:
-          if (isHexadecimalDigit(current)) {
-            consume();
-            state = State.HEX_100;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected hexadecimal digit");
-            consume();
-            state = State.HEX_100;
-          }
-          break;
-        case State.HEX_100:
-          if (isHexadecimalDigit(current)) {
-            consume();
-          } else if (current == '_') {
-            consume();
-            state = State.HEX_200;
-          } else if (current == 'L') {
-            consume();
-            state = State.HEX_210;
-          } else if (current == 'u') {
-            consume();
-            state = State.HEX_220;
-          } else if (current == '.') {
-            consume();
-            state = State.HEX_300;
-          } else if (current == 'p') {
-            consume();
-            state = State.HEX_600;
-          } else {
-            // Accept
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_INT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.HEX_200:
-          if (isHexadecimalDigit(current)) {
-            consume();
-            state = State.HEX_100;
-          } else if (current == 'L') {
-            consume();
-            state = State.HEX_210;
-          } else if (current == 'u') {
-            consume();
-            state = State.HEX_220;
-          } else if (current == 'p') {
-            consume();
-            state = State.HEX_600;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected 'L', 'u', 'p', or hexadecimal digit");
-            consume();
-            state = State.HEX_100;
-          }
-          break;
-        case State.HEX_210:
-          if (current == 'u') {
-            consume();
-            state = State.HEX_230;
-          } else {
-            // Accept
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_INT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.HEX_220:
-          if (current == 'L') {
-            consume();
-            state = State.HEX_230;
-          } else {
-            // Accept
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_UINT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.HEX_230: {
-          // Accept
-          final var lexeme = input.substring(beginPosition, position.get());
-          token = new Token(Token.Kind.HEXADECIMAL_UINT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-        case State.HEX_300:
-          if (isHexadecimalDigit(current)) {
-            consume();
-            state = State.HEX_400;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected hexadecimal digit");
-            consume();
-            // Do we need to change states here?
-          }
-          break;
-        case State.HEX_400:
-          if (isHexadecimalDigit(current)) {
-            consume();
-          } else if (current == '_') {
-            consume();
-            state = State.HEX_500;
-          } else if (current == 'p') {
-            consume();
-            state = State.HEX_600;
-          } else {
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_FLOAT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.HEX_500:
-          if (isHexadecimalDigit(current)) {
-            consume();
-            state = State.HEX_400;
-          } else if (current == 'p') {
-            consume();
-            state = State.HEX_600;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected 'p' or hexadecimal digit");
-            consume();
-            state = State.HEX_400;
-          }
-          break;
-        case State.HEX_600:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.HEX_800;
-          } else if (current == '+' || current == '-') {
-            consume();
-            state = State.HEX_700;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected '+', '-', or decimal digit");
-            consume();
-            state = State.HEX_800;
-          }
-          break;
-        case State.HEX_700:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.HEX_800;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected decimal digit");
-            consume();
-            state = State.HEX_800;
-          }
-          break;
-        case State.HEX_800:
-          if (isDecimalDigit(current)) {
-            consume();
-          } else if (current == 'd') {
-            consume();
-            state = State.HEX_810;
-          } else if (current == 'f') {
-            consume();
-            state = State.HEX_820;
-          } else {
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_FLOAT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.HEX_810:
-          {
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_FLOAT64_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        case State.HEX_820:
-          {
-              final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.HEXADECIMAL_FLOAT32_LITERAL, lexeme, position.get(), line.get(), column.get());
-          }
-          break;
-        default:
-          // Invalid state. Can only be reached through a lexer bug.
-          System.out.println("error: Invalid state.");
-      }
-    }
-    return token;
-  }
-
-  private Token number () {
-    // This scans for an integer or floating point number.
-    final var beginPosition = position.get();
-    final var beginColumn = column.get();
-    var state = State.NUM_START;
-    Token token = null;
-    while (token == null) {
-
-//      System.out.println("Sleeping for " + SLEEP_TIME + " seconds in declarations...");
-//      try {
-//        Thread.sleep(SLEEP_TIME);
-//      } catch (InterruptedException e) {
-//        throw new RuntimeException(e);
-//      }
-
-      switch (state) {
-        case State.NUM_START:
-          // We are guaranteed to get a digit here unless the lexer has a bug in it.
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.NUM_100;
-          } else if (current == '.') {
-            consume();
-            state = State.NUM_300;
-          } else {
-            state = State.NUM_ERROR;
-          }
-          break;
-        case State.NUM_100:
-          if (isDecimalDigit(current)) {
-            consume();
-          } else if (current == '_') {
-            consume();
-            state = State.NUM_200;
-          } else if (current == 'L') {
-            consume();
-            state = State.NUM_210;
-          } else if (current == 'u') {
-            consume();
-            state = State.NUM_220;
-          } else if (current == '.') {
-            consume();
-            state = State.NUM_300;
-          } else if (current == 'e') {
-            consume();
-            state = State.NUM_600;
-          } else if (current == 'd') {
-            consume();
-            state = State.NUM_810;
-          } else if (current == 'f') {
-            consume();
-            state = State.NUM_820;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.INT32_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        case State.NUM_200:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.NUM_100;
-          } else if (current == 'e') {
-            consume();
-            state = State.NUM_600;
-          } else if (current == 'd') {
-            consume();
-            state = State.NUM_810;
-          } else if (current == 'f') {
-            consume();
-            state = State.NUM_820;
-          } else if (current == 'L') {
-            consume();
-            state = State.NUM_210;
-          } else if (current == 'u') {
-            consume();
-            state = State.NUM_220;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected 'd', 'f', 'e', 'L', 'u', or decimal digit");
-            consume();
-            state = State.NUM_100;
-          }
-          break;
-        case State.NUM_210:
-          if (current == 'u') {
-            consume();
-            state = State.NUM_230;
-          } else {
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.INT64_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        case State.NUM_220:
-          if (current == 'L') {
-            consume();
-            state = State.NUM_230;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.UINT32_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        case State.NUM_230:
-          {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.UINT64_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-            break;
-          }
-        case State.NUM_300:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.NUM_400;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: expected decimal digit, got '" + current + "'");
-            // We don't want to consume the character in case it belongs to the
-            // next token. That can cause the lexical error to cascade into a
-            // hard-to-understand syntax error. Leaving the character alone may
-            // still result in a syntax error, but it will generally be more
-            // sensible.
-            state = State.NUM_400;
-          }
-          break;
-        case State.NUM_400:
-          if (isDecimalDigit(current)) {
-            consume();
-          } else if (current == '_') {
-            consume();
-            state = State.NUM_500;
-          } else if (current == 'e') {
-            consume();
-            state = State.NUM_600;
-          } else if (current == 'd') {
-            consume();
-            state = State.NUM_810;
-          } else if (current == 'f') {
-            consume();
-            state = State.NUM_820;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.FLOAT64_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        case State.NUM_500:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.NUM_400;
-          } else if (current == 'e') {
-            consume();
-            state = State.NUM_600;
-          } else if (current == 'd') {
-            consume();
-            state = State.NUM_810;
-          } else if (current == 'f') {
-            consume();
-            state = State.NUM_820;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected decimal digit");
-            consume();
-            state = State.NUM_400;
-          }
-          break;
-        case State.NUM_600:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.NUM_800;
-          } else if (current == '+' || current == '-') {
-            consume();
-            state = State.NUM_700;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected '+', '-', or decimal digit");
-            consume();
-            state = State.NUM_800;
-          }
-          break;
-        case State.NUM_700:
-          if (isDecimalDigit(current)) {
-            consume();
-            state = State.NUM_800;
-          } else {
-            // Pretend we got a digit for error recovery purposes
-            error("invalid number: found '" + current + "', expected decimal digit");
-            consume();
-            state = State.NUM_800;
-          }
-          break;
-        case State.NUM_800:
-          if (isDecimalDigit(current)) {
-            consume();
-          } else if (current == 'd') {
-            consume();
-            state = State.NUM_810;
-          } else if (current == 'f') {
-            consume();
-            state = State.NUM_820;
-          } else {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.FLOAT64_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        case State.NUM_810:
-          {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.FLOAT64_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        case State.NUM_820:
-          {
-            // Accept
-            final var lexeme = input.substring(beginPosition, position.get());
-            token = new Token(Token.Kind.FLOAT32_LITERAL, lexeme, beginPosition, line.get(), beginColumn);
-          }
-          break;
-        default:
-           // Invalid state. Can only be reached through a lexer bug.
-           System.out.println("error: Invalid state.");
-           break;
-      }
+  // The syntax of floating point literals is close enough to that of Java
+  // that, once underscores are removed, the library can convert them. Java
+  // requires hexadecimal literals to have an exponent, though. A literal that
+  // was malformed, and has already been reported as such, converts to zero.
+
+  private double floatingPointValue (Token.Kind kind, int beginPosition) {
+    var text = input.subSequence(beginPosition, position.get()).toString().replace("_", "");
+    var hexadecimal = kind == Token.Kind.HEXADECIMAL_FLOAT32_LITERAL || kind == Token.Kind.HEXADECIMAL_FLOAT64_LITERAL;
+    if (hexadecimal && text.indexOf('p') < 0)
+      text = text + "p0";
+    try {
+      if (kind == Token.Kind.FLOAT32_LITERAL || kind == Token.Kind.HEXADECIMAL_FLOAT32_LITERAL)
+        return Float.parseFloat(text);
+      return Double.parseDouble(text);
+    } catch (NumberFormatException e) {
+      return 0.0;
     }
-    return token;
   }
 }
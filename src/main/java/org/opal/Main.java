@@ -8,15 +8,34 @@ package org.opal;
 // package.
 
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import jdk.jfr.FlightRecorder;
 
 public class Main {
   public static void main(String[] args) {
     var jArgs = new Args();
-    JCommander.newBuilder()
-      .addObject(jArgs)
-      .build()
-      .parse(args);
+    try {
+      JCommander.newBuilder()
+        .addObject(jArgs)
+        .build()
+        .parse(Args.withDefaultValues(args));
+    } catch (ParameterException e) {
+      System.out.println("error: " + e.getMessage());
+      System.exit(1);
+    }
     var name = jArgs.getName();
-    var translator = new Translator(name);
+    var format = jArgs.getTimePasses();
+    var timings = format != null ? new Timings(format) : new Timings();
+    // Timings report node and symbol counts, and so do the events of a flight
+    // recording started along with the compiler
+    var counting = format != null || FlightRecorder.isInitialized();
+    if (counting)
+      Timings.startCounting();
+    try {
+      var translator = new Translator(name, jArgs.getJobs(), timings);
+    } finally {
+      if (counting)
+        Timings.stopCounting();
+    }
   }
 }
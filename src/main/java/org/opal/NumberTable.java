@@ -0,0 +1,302 @@
+package org.opal;
+
+import java.util.Arrays;
+
+import static org.opal.State.*;
+
+// The numeric literal scanners share a single deterministic finite automaton,
+// stored as a transition table indexed by state and character class. Binary,
+// octal, hexadecimal, and decimal literals each have their own start state.
+
+// Characters are first mapped to one of a few classes, since most characters
+// behave identically in every state, so each state only needs a short row of
+// the table. A missing transition either accepts the literal, if the state is
+// accepting, or reports an error and recovers by pretending the expected
+// character was seen, as the original hand-written scanners did.
+
+// The states keep the names of the State enum, and the table is indexed by
+// their ordinals. Transitions are listed below per state, in the same form as
+// the hand-written scanners they replace.
+
+public class NumberTable {
+
+  private static final int NO_STATE = -1;
+
+  // Character classes. The letters b, d, e, and f are hexadecimal digits, but
+  // have other meanings in binary and decimal literals.
+  private static final int BINARY_DIGIT  = 0;
+  private static final int OCTAL_DIGIT   = 1;
+  private static final int DECIMAL_DIGIT = 2;
+  private static final int HEX_LETTER    = 3;
+  private static final int LETTER_B      = 4;
+  private static final int LETTER_D      = 5;
+  private static final int LETTER_E      = 6;
+  private static final int LETTER_F      = 7;
+  private static final int LETTER_L      = 8;
+  private static final int LETTER_O      = 9;
+  private static final int LETTER_P      = 10;
+  private static final int LETTER_U      = 11;
+  private static final int LETTER_X      = 12;
+  private static final int UNDERSCORE    = 13;
+  private static final int DOT           = 14;
+  private static final int SIGN          = 15;
+  private static final int OTHER         = 16;
+
+  private static final int CLASS_COUNT = 17;
+
+  private static final String BINARY = "01";
+  private static final String OCTAL = "01234567";
+  private static final String DECIMAL = "0123456789";
+  private static final String HEXADECIMAL = "0123456789abcdefABCDEF";
+
+  private static final State[] STATES = State.values();
+
+  private static final byte[] CLASS = new byte[128];
+
+  // Value of each ASCII character as a digit in any radix up to 16, or -1
+  private static final byte[] DIGIT_VALUE = new byte[128];
+
+  // Next state, indexed by state * CLASS_COUNT + class
+  private static final byte[] TRANSITIONS = new byte[STATES.length * CLASS_COUNT];
+
+  // Token kind accepted in each state, or null if the state is not accepting
+  private static final Token.Kind[] ACCEPT = new Token.Kind[STATES.length];
+
+  // What a non-accepting state expects, and where it recovers to when it
+  // does not get it
+  private static final String[] EXPECTED = new String[STATES.length];
+  private static final byte[] RECOVERY = new byte[STATES.length];
+  private static final boolean[] RECOVERY_CONSUMES = new boolean[STATES.length];
+
+  static {
+    Arrays.fill(CLASS, (byte)OTHER);
+    Arrays.fill(DIGIT_VALUE, (byte)-1);
+    Arrays.fill(TRANSITIONS, (byte)NO_STATE);
+    Arrays.fill(RECOVERY, (byte)NO_STATE);
+    classify("01", BINARY_DIGIT);
+    classify("234567", OCTAL_DIGIT);
+    classify("89", DECIMAL_DIGIT);
+    classify("acABCDEF", HEX_LETTER);
+    classify("b", LETTER_B);
+    classify("d", LETTER_D);
+    classify("e", LETTER_E);
+    classify("f", LETTER_F);
+    classify("L", LETTER_L);
+    classify("o", LETTER_O);
+    classify("p", LETTER_P);
+    classify("u", LETTER_U);
+    classify("x", LETTER_X);
+    classify("_", UNDERSCORE);
+    classify(".", DOT);
+    classify("+-", SIGN);
+    for (var ch = '0'; ch <= '9'; ch++)
+      DIGIT_VALUE[ch] = (byte)(ch - '0');
+    for (var ch = 'a'; ch <= 'f'; ch++)
+      DIGIT_VALUE[ch] = (byte)(ch - 'a' + 10);
+    for (var ch = 'A'; ch <= 'F'; ch++)
+      DIGIT_VALUE[ch] = (byte)(ch - 'A' + 10);
+
+    // Binary integers
+    on(BIN_START, "0", BIN_100);
+    on(BIN_100, "b", BIN_200);
+    on(BIN_200, BINARY, BIN_400);
+    on(BIN_200, "_", BIN_300);
+    recover(BIN_200, "binary digit or underscore", BIN_400);
+    on(BIN_300, BINARY, BIN_400);
+    recover(BIN_300, "binary digit", BIN_400);
+    on(BIN_400, BINARY, BIN_400);
+    on(BIN_400, "_", BIN_500);
+    on(BIN_400, "L", BIN_600);
+    on(BIN_400, "u", BIN_700);
+    accept(BIN_400, Token.Kind.BINARY_INT32_LITERAL);
+    on(BIN_500, BINARY, BIN_400);
+    on(BIN_500, "L", BIN_600);
+    on(BIN_500, "u", BIN_700);
+    recover(BIN_500, "binary digit", BIN_400);
+    on(BIN_600, "u", BIN_800);
+    accept(BIN_600, Token.Kind.BINARY_INT64_LITERAL);
+    on(BIN_700, "L", BIN_800);
+    accept(BIN_700, Token.Kind.BINARY_UINT32_LITERAL);
+    accept(BIN_800, Token.Kind.BINARY_UINT64_LITERAL);
+
+    // Octal integers
+    on(OCT_START, "0", OCT_100);
+    on(OCT_100, "o", OCT_200);
+    on(OCT_200, OCTAL, OCT_400);
+    on(OCT_200, "_", OCT_300);
+    recover(OCT_200, "octal digit or underscore", OCT_400);
+    on(OCT_300, OCTAL, OCT_400);
+    recover(OCT_300, "octal digit", OCT_400);
+    on(OCT_400, OCTAL, OCT_400);
+    on(OCT_400, "_", OCT_500);
+    on(OCT_400, "L", OCT_600);
+    on(OCT_400, "u", OCT_700);
+    accept(OCT_400, Token.Kind.OCTAL_INT32_LITERAL);
+    on(OCT_500, OCTAL, OCT_400);
+    on(OCT_500, "L", OCT_600);
+    on(OCT_500, "u", OCT_700);
+    recover(OCT_500, "octal digit", OCT_400);
+    on(OCT_600, "u", OCT_800);
+    accept(OCT_600, Token.Kind.OCTAL_INT64_LITERAL);
+    on(OCT_700, "L", OCT_800);
+    accept(OCT_700, Token.Kind.OCTAL_UINT32_LITERAL);
+    accept(OCT_800, Token.Kind.OCTAL_UINT64_LITERAL);
+
+    // Hexadecimal integers and floating point numbers
+    on(HEX_START, "0", HEX_10);
+    on(HEX_10, "x", HEX_20);
+    on(HEX_20, HEXADECIMAL, HEX_100);
+    on(HEX_20, "_", HEX_30);
+    on(HEX_20, ".", HEX_300);
+    recover(HEX_20, "hexadecimal digit, dot, or underscore", HEX_100);
+    on(HEX_30, HEXADECIMAL, HEX_100);
+    recover(HEX_30, "hexadecimal digit", HEX_100);
+    on(HEX_100, HEXADECIMAL, HEX_100);
+    on(HEX_100, "_", HEX_200);
+    on(HEX_100, "L", HEX_210);
+    on(HEX_100, "u", HEX_220);
+    on(HEX_100, ".", HEX_300);
+    on(HEX_100, "p", HEX_600);
+    accept(HEX_100, Token.Kind.HEXADECIMAL_INT32_LITERAL);
+    on(HEX_200, HEXADECIMAL, HEX_100);
+    on(HEX_200, "L", HEX_210);
+    on(HEX_200, "u", HEX_220);
+    on(HEX_200, "p", HEX_600);
+    recover(HEX_200, "'L', 'u', 'p', or hexadecimal digit", HEX_100);
+    on(HEX_210, "u", HEX_230);
+    accept(HEX_210, Token.Kind.HEXADECIMAL_INT64_LITERAL);
+    on(HEX_220, "L", HEX_230);
+    accept(HEX_220, Token.Kind.HEXADECIMAL_UINT32_LITERAL);
+    accept(HEX_230, Token.Kind.HEXADECIMAL_UINT64_LITERAL);
+    on(HEX_300, HEXADECIMAL, HEX_400);
+    recover(HEX_300, "hexadecimal digit", HEX_400);
+    on(HEX_400, HEXADECIMAL, HEX_400);
+    on(HEX_400, "_", HEX_500);
+    on(HEX_400, "p", HEX_600);
+    accept(HEX_400, Token.Kind.HEXADECIMAL_FLOAT64_LITERAL);
+    on(HEX_500, HEXADECIMAL, HEX_400);
+    on(HEX_500, "p", HEX_600);
+    recover(HEX_500, "'p' or hexadecimal digit", HEX_400);
+    on(HEX_600, DECIMAL, HEX_800);
+    on(HEX_600, "+-", HEX_700);
+    recover(HEX_600, "'+', '-', or decimal digit", HEX_800);
+    on(HEX_700, DECIMAL, HEX_800);
+    recover(HEX_700, "decimal digit", HEX_800);
+    on(HEX_800, DECIMAL, HEX_800);
+    on(HEX_800, "d", HEX_810);
+    on(HEX_800, "f", HEX_820);
+    accept(HEX_800, Token.Kind.HEXADECIMAL_FLOAT64_LITERAL);
+    accept(HEX_810, Token.Kind.HEXADECIMAL_FLOAT64_LITERAL);
+    accept(HEX_820, Token.Kind.HEXADECIMAL_FLOAT32_LITERAL);
+
+    // Decimal integers and floating point numbers
+    on(NUM_START, DECIMAL, NUM_100);
+    on(NUM_START, ".", NUM_300);
+    on(NUM_100, DECIMAL, NUM_100);
+    on(NUM_100, "_", NUM_200);
+    on(NUM_100, "L", NUM_210);
+    on(NUM_100, "u", NUM_220);
+    on(NUM_100, ".", NUM_300);
+    on(NUM_100, "e", NUM_600);
+    on(NUM_100, "d", NUM_810);
+    on(NUM_100, "f", NUM_820);
+    accept(NUM_100, Token.Kind.INT32_LITERAL);
+    on(NUM_200, DECIMAL, NUM_100);
+    on(NUM_200, "e", NUM_600);
+    on(NUM_200, "d", NUM_810);
+    on(NUM_200, "f", NUM_820);
+    on(NUM_200, "L", NUM_210);
+    on(NUM_200, "u", NUM_220);
+    recover(NUM_200, "'d', 'f', 'e', 'L', 'u', or decimal digit", NUM_100);
+    on(NUM_210, "u", NUM_230);
+    accept(NUM_210, Token.Kind.INT64_LITERAL);
+    on(NUM_220, "L", NUM_230);
+    accept(NUM_220, Token.Kind.UINT32_LITERAL);
+    accept(NUM_230, Token.Kind.UINT64_LITERAL);
+    on(NUM_300, DECIMAL, NUM_400);
+    // The offending character is left alone in case it belongs to the next
+    // token, which keeps the error from cascading into a confusing syntax
+    // error.
+    recover(NUM_300, "decimal digit", NUM_400, false);
+    on(NUM_400, DECIMAL, NUM_400);
+    on(NUM_400, "_", NUM_500);
+    on(NUM_400, "e", NUM_600);
+    on(NUM_400, "d", NUM_810);
+    on(NUM_400, "f", NUM_820);
+    accept(NUM_400, Token.Kind.FLOAT64_LITERAL);
+    on(NUM_500, DECIMAL, NUM_400);
+    on(NUM_500, "e", NUM_600);
+    on(NUM_500, "d", NUM_810);
+    on(NUM_500, "f", NUM_820);
+    recover(NUM_500, "decimal digit", NUM_400);
+    on(NUM_600, DECIMAL, NUM_800);
+    on(NUM_600, "+-", NUM_700);
+    recover(NUM_600, "'+', '-', or decimal digit", NUM_800);
+    on(NUM_700, DECIMAL, NUM_800);
+    recover(NUM_700, "decimal digit", NUM_800);
+    on(NUM_800, DECIMAL, NUM_800);
+    on(NUM_800, "d", NUM_810);
+    on(NUM_800, "f", NUM_820);
+    accept(NUM_800, Token.Kind.FLOAT64_LITERAL);
+    accept(NUM_810, Token.Kind.FLOAT64_LITERAL);
+    accept(NUM_820, Token.Kind.FLOAT32_LITERAL);
+  }
+
+  private NumberTable () {}
+
+  private static void classify (String chars, int charClass) {
+    for (var i = 0; i < chars.length(); i++)
+      CLASS[chars.charAt(i)] = (byte)charClass;
+  }
+
+  private static void on (State from, String chars, State to) {
+    for (var i = 0; i < chars.length(); i++)
+      TRANSITIONS[from.ordinal() * CLASS_COUNT + CLASS[chars.charAt(i)]] = (byte)to.ordinal();
+  }
+
+  private static void accept (State state, Token.Kind kind) {
+    ACCEPT[state.ordinal()] = kind;
+  }
+
+  private static void recover (State state, String expected, State to) {
+    recover(state, expected, to, true);
+  }
+
+  private static void recover (State state, String expected, State to, boolean consumes) {
+    EXPECTED[state.ordinal()] = expected;
+    RECOVERY[state.ordinal()] = (byte)to.ordinal();
+    RECOVERY_CONSUMES[state.ordinal()] = consumes;
+  }
+
+  // Returns the state reached from the given state on the given character, or
+  // a negative number if there is no such transition
+
+  public static int next (int state, char ch) {
+    var charClass = ch < 128 ? CLASS[ch] : OTHER;
+    return TRANSITIONS[state * CLASS_COUNT + charClass];
+  }
+
+  public static Token.Kind accepts (int state) {
+    return ACCEPT[state];
+  }
+
+  public static String expected (int state) {
+    return EXPECTED[state];
+  }
+
+  public static int recovery (int state) {
+    return RECOVERY[state];
+  }
+
+  public static boolean recoveryConsumes (int state) {
+    return RECOVERY_CONSUMES[state];
+  }
+
+  // Returns the value of the given character as a digit, or -1 if it is not
+  // a hexadecimal digit
+
+  public static int digitValue (char ch) {
+    return ch < 128 ? DIGIT_VALUE[ch] : -1;
+  }
+
+}
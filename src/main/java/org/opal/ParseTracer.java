@@ -0,0 +1,39 @@
+package org.opal;
+
+// A parse tracer receives an event for each step the parser takes while
+// matching tokens and recovering from errors. Tracing used to be done with
+// log messages, which built a string for every token whether or not anything
+// was being logged. Events are now reported as plain values instead, and the
+// parser only reports them at all if tracing was enabled when the class was
+// loaded (see Parser.TRACE). Since that flag is a static final constant, the
+// JIT compiler removes the disabled call sites entirely.
+
+public interface ParseTracer {
+
+  enum Event {
+    PARSE_STARTED,
+    PARSE_COMPLETE,
+    CHECK_IN_STARTED,
+    CHECK_IN_COMPLETE,
+    CHECK_OUT_STARTED,
+    CHECK_OUT_COMPLETE,
+    RECOVERY_STARTED,
+    RECOVERY_COMPLETE,
+    SKIPPED,
+    CLEANED,
+    MATCHED,
+    MISMATCHED,
+    CONFIRMED,
+    PANIC_TRIGGERED
+  }
+
+  // Tracer that discards every event
+
+  ParseTracer NONE = (event, kind, position) -> {};
+
+  // Records an event that occurred while the given token kind was current at
+  // the given position in the token stream
+
+  void trace (Event event, Token.Kind kind, int position);
+
+}
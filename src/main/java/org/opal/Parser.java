@@ -2,8 +2,6 @@ package org.opal;
 
 import java.util.*;
 
-import org.apache.logging.log4j.core.config.Configurator;
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
@@ -14,7 +12,11 @@ import org.opal.ast.statement.*;
 import org.opal.ast.type.*;
 
 import org.opal.ast.type.ArrayDeclarators;
+import org.opal.error.Diagnostics;
+
+import java.util.concurrent.ForkJoinTask;
 import org.opal.error.SyntaxError;
+import org.opal.event.RecoveryEvent;
 
 // To do: Implement debug logging
 
@@ -31,17 +33,18 @@ public class Parser {
 
   private final int SLEEP_TIME = 100;
 
-  private final LinkedList<Token> input;
-  private final Counter position;
+  private final TokenStream input;
 
-  private Token lookahead;
   private Token.Kind kind;
 
   // Experimental
   @Deprecated
-  private Token mark2 = new Token(Token.Kind.IDENTIFIER, "DEPRECATED_MARK", 1, 1, 1);
+  private Token mark2 = new Token(Token.Kind.IDENTIFIER, "DEPRECATED_MARK");
+
+  private final SourceFile source;
 
-  private final List<String> sourceLines;
+  // Syntax errors are collected here rather than printed as they occur
+  private final Diagnostics diagnostics;
 
   // Used to pass type nodes up and down during tree traversal
   //private final LinkedList<DirectDeclarator> stack;
@@ -77,6 +80,29 @@ public class Parser {
   // error message.
   private boolean inSubExpression = false;
 
+  // Whether routine bodies are skipped and only parsed on demand
+  private boolean lazyRoutineBodies = false;
+
+  // Diagnostics that errors in deferred routine bodies are added to. This is
+  // the diagnostics of the whole file, even for a parser that only parses a
+  // chunk of it.
+  private Diagnostics deferredDiagnostics;
+
+  // Routine bodies deferred by this parser, or by the chunk parsers whose
+  // declarations it accepted, in the order they appear in the file
+  private ArrayList<RoutineBody> deferredBodies = new ArrayList<>();
+
+  // Positions of the tokens a chunk parser found in error. Chunk parsers
+  // share the token buffer and may be thrown away, so they record errors
+  // here rather than flagging the tokens, and the flags are only set once
+  // the chunk is accepted. Null for any other parser, which flags tokens
+  // directly.
+  private ArrayList<Integer> errorPositions = null;
+
+  // Whether the top-level declarations are split into chunks that are parsed
+  // in parallel
+  private boolean parallelDeclarations = false;
+
   // Todo: we may also need a 'null_t' type, for which there is exactly one
   // value, which is 'null'. This is to match the C++ 'nullptr_t' type and its
   // corresponding single 'nullptr' value. I am not sure if this is a primitive
@@ -87,6 +113,13 @@ public class Parser {
 
   private static final Logger LOGGER = LogManager.getLogger();
 
+  // Tracing is enabled by running with -Dopal.trace=true. Every trace call is
+  // guarded by this flag, so when it is off, no tracing code runs at all. The
+  // recorded trace is logged at INFO level once parsing is complete.
+  public static final boolean TRACE = Boolean.getBoolean("opal.trace");
+
+  private final ParseTracer tracer = TRACE ? new RingBufferTracer() : ParseTracer.NONE;
+
   // Represents epsilon productions
   private static final AstNode EPSILON = null;
 
@@ -207,67 +240,151 @@ public class Parser {
   private static final Token.Kind UINT32_LITERAL = Token.Kind.UINT32_LITERAL;
   private static final Token.Kind UINT64_LITERAL = Token.Kind.UINT64_LITERAL;
 
-  private static final EnumSet<Token.Kind> SYNC_DECL = EnumSet.of(SEMICOLON, R_BRACE, Token.Kind.EOF);
-  private static final EnumSet<Token.Kind> SYNC_STMT = EnumSet.of(SEMICOLON, R_BRACE, Token.Kind.EOF);
+  private static final TokenSet SYNC_DECL = TokenSet.of(SEMICOLON, R_BRACE, Token.Kind.EOF);
+  private static final TokenSet SYNC_STMT = TokenSet.of(SEMICOLON, R_BRACE, Token.Kind.EOF);
+
+  // Sets the declaration lists recover to, built once rather than on every
+  // error
+  private static final TokenSet IMPORT_DECLARATIONS_RECOVERY =
+    TokenSet.union(FirstSet.IMPORT_DECLARATION, FollowSet.IMPORT_DECLARATIONS);
+  private static final TokenSet USE_DECLARATIONS_RECOVERY =
+    TokenSet.union(FirstSet.USE_DECLARATION, FollowSet.USE_DECLARATIONS);
+  private static final TokenSet OTHER_DECLARATIONS_RECOVERY =
+    TokenSet.union(FirstSet.OTHER_DECLARATION, FollowSet.OTHER_DECLARATIONS);
 
+  // Tokens that can start a top-level declaration, including modifiers. Only
+  // used to find where declarations might start, not to parse them.
+  private static final TokenSet DECLARATION_START =
+    TokenSet.union(FirstSet.OTHER_DECLARATION, TokenSet.of(ABSTRACT, CONSTEXPR, FINAL, VOLATILE, TYPEALIAS));
 
+  // Fewest tokens worth parsing as a chunk of their own
+  private static final int CHUNK_TOKENS = 1 << 15;
 
-  public Parser (LinkedList<Token> input, List<String> sourceLines) {
+  private static final TokenSet BASE_CLASSES_SYNC = TokenSet.of(L_BRACE);
+  private static final TokenSet MEMBER_DECLARATION_SYNC = TokenSet.of(PRIVATE, CLASS, DEF, VAL, VAR, R_BRACE);
+
+
+
+  public Parser (TokenStream input, SourceFile source) {
+    this(input, source, new Diagnostics());
+  }
+
+  public Parser (TokenStream input, SourceFile source, Diagnostics diagnostics) {
+    this(input, source, diagnostics, new LookupTable().getReverseLookupTable());
+  }
+
+  private Parser (TokenStream input, SourceFile source, Diagnostics diagnostics, HashMap<Token.Kind, String> reverseLookup) {
     this.input = input;
-    position = new Counter();
-    lookahead = input.get(position.get());
-    kind = lookahead.getKind();
-    this.sourceLines = sourceLines;
+    this.diagnostics = diagnostics;
+    kind = input.kind();
+    this.source = source;
     //stack = new LinkedList<>();
     nodeStack = new LinkedList<>();
     modifierStack = new LinkedList<>();
+    this.reverseLookup = reverseLookup;
+    deferredDiagnostics = diagnostics;
+  }
+
+  // With lazy routine bodies, the parser only skips over each routine body,
+  // matching braces, and remembers the token it starts at. The body is parsed
+  // the first time anything asks the routine body node for its compound
+  // statement. Passes that only need declarations and signatures, such as
+  // building a module interface, then never pay for parsing statements and
+  // expressions at all.
+
+  // Skipped bodies have to be parsed from the token buffer later, so lazy
+  // bodies require a complete token stream. A streaming stream discards
+  // tokens once the parser is past them, so its bodies are always parsed
+  // immediately.
 
-    var lookupTable = new LookupTable();
-    reverseLookup = lookupTable.getReverseLookupTable();
+  // Errors in a deferred body are only found when the body is parsed, so the
+  // diagnostics of the file are not complete until then. A caller that
+  // reports them must first parse every body that is still deferred, by
+  // calling parseDeferredBodies.
 
-    // Set up logging
-    var level = Level.INFO;
-    Configurator.setRootLevel(level);
+  public void setLazyRoutineBodies (boolean lazyRoutineBodies) {
+    this.lazyRoutineBodies = lazyRoutineBodies;
+  }
+
+  // Parses every routine body that is still deferred, in file order, so that
+  // their errors are added to the diagnostics after all errors found up front
+
+  public void parseDeferredBodies () {
+    for (var body : deferredBodies)
+      body.getCompoundStatement();
+    deferredBodies.clear();
+  }
+
+  // With parallel declarations, the top-level declarations of a large file
+  // are split into chunks, which are parsed on the fork-join pool the parser
+  // runs in, or the common pool otherwise. Like lazy bodies, this requires a
+  // complete token stream. See otherDeclarations().
+
+  public void setParallelDeclarations (boolean parallelDeclarations) {
+    this.parallelDeclarations = parallelDeclarations;
   }
 
   // We might need multiple versions of check-in and check-out because the
   // error messages may differ.
 
-  private void checkIn (EnumSet<Token.Kind> firstSet, EnumSet<Token.Kind> followSet, Token.Kind expectedKind) {
-    LOGGER.info("check-in started");
+  private void checkIn (TokenSet firstSet, TokenSet followSet, Token.Kind expectedKind) {
+    if (TRACE)
+      trace(ParseTracer.Event.CHECK_IN_STARTED);
     if (!firstSet.contains(kind)) {
       panic(expectedKind);
-      recover(union(firstSet, followSet));
+      recover(firstSet, followSet);
     }
-    LOGGER.info("check-in complete");
+    if (TRACE)
+      trace(ParseTracer.Event.CHECK_IN_COMPLETE);
   }
 
   // Check-out only occurs if we are in error recovery mode (i.e. a panic
   // occurred).
 
-  private void checkOut (EnumSet<Token.Kind> followSet, String expectedKindString) {
-    LOGGER.info("check-out started");
+  private void checkOut (TokenSet followSet, String expectedKindString) {
+    if (TRACE)
+      trace(ParseTracer.Event.CHECK_OUT_STARTED);
     if (!followSet.contains(kind) && errorRecoveryMode) {
       recover(followSet);
       cleanup();
     }
-    LOGGER.info("check-out complete");
+    if (TRACE)
+      trace(ParseTracer.Event.CHECK_OUT_COMPLETE);
   }
 
-  private static final EnumSet<Token.Kind> SYNC_GLOBAL = EnumSet.of(SEMICOLON, R_BRACE, Token.Kind.EOF);
+  private static final TokenSet SYNC_GLOBAL = TokenSet.of(SEMICOLON, R_BRACE, Token.Kind.EOF);
 
   // Why can't we exit error recovery mode once recover is complete? I think we
   // should be able to. Do we need to wait for cleanup() to run?
 
-  private void recover (EnumSet<Token.Kind> recoverSet) {
-    LOGGER.info("recovery started");
-    var syncSet = union(recoverSet, SYNC_GLOBAL);
-    while (!syncSet.contains(kind)) {
-      LOGGER.info("skipped {}", lookahead);
+  // Rather than building the union of the recovery set and the global sync
+  // set, each skipped token is simply tested against both.
+
+  private void recover (TokenSet recoverSet) {
+    recover(recoverSet, SYNC_GLOBAL);
+  }
+
+  private void recover (TokenSet firstSet, TokenSet followSet) {
+    if (TRACE)
+      trace(ParseTracer.Event.RECOVERY_STARTED);
+    var event = new RecoveryEvent();
+    event.begin();
+    var skipped = 0;
+    while (!firstSet.contains(kind) && !followSet.contains(kind) && !SYNC_GLOBAL.contains(kind)) {
+      if (TRACE)
+        trace(ParseTracer.Event.SKIPPED);
       consume();
+      skipped += 1;
     }
     errorRecoveryMode = false;
-    LOGGER.info("recovery complete");
+    if (event.isEnabled()) {
+      // Recovery ends at the token the parser synchronized on
+      event.line = lookahead().getLine();
+      event.column = lookahead().getColumn();
+    }
+    event.finish("Parser", source.getName(), skipped, 0);
+    if (TRACE)
+      trace(ParseTracer.Event.RECOVERY_COMPLETE);
   }
 
   // When can we clear error recovery mode? I believe it is on match, confirm,
@@ -282,7 +399,8 @@ public class Parser {
 
   private void cleanup () {
     if (kind == SEMICOLON || kind == R_BRACE) {
-      LOGGER.info("cleaned {}", lookahead);
+      if (TRACE)
+        trace(ParseTracer.Event.CLEANED);
       consume();
     }
   }
@@ -292,33 +410,51 @@ public class Parser {
   // complete.
 
   private Token match (Token.Kind expectedKind) {
-    if (lookahead.getKind() == expectedKind) {
-      LOGGER.info("matched " + lookahead);
-      var mark = lookahead;
+    if (kind == expectedKind) {
+      if (TRACE)
+        trace(ParseTracer.Event.MATCHED);
+      var mark = lookahead();
       consume();
       return mark;
     } else {
-      LOGGER.info("mis-matched " + lookahead);
-      lookahead.setError();
+      if (TRACE)
+        trace(ParseTracer.Event.MISMATCHED);
+      if (errorPositions != null)
+        errorPositions.add(input.position());
+      else
+        lookahead().setError();
       if (!errorRecoveryMode)
         matchError(expectedKind);
       // Should we at least advance the input stream? If we do, then we
       // effectively delete the bad token. Different sources say yes or no,
       // but several seem to indicate that we should NOT consume.
       errorRecoveryMode = true;
-      return lookahead;
+      return lookahead();
     }
   }
 
+  // Skip is match for tokens the caller does not keep, i.e. punctuation and
+  // most keywords. On success, the token is consumed without ever being
+  // materialized, so a streaming token stream need not retain a copy of it.
+  // On failure, it reports the error exactly as match does.
+
+  private void skip (Token.Kind expectedKind) {
+    if (kind == expectedKind) {
+      if (TRACE)
+        trace(ParseTracer.Event.MATCHED);
+      consume();
+    } else
+      match(expectedKind);
+  }
+
   private void matchError (Token.Kind expectedKind) {
     var expectedKindString = reverseLookup.get(expectedKind);
     var expectedString =
       expectedKindString == null ? friendlyKind(expectedKind) : quote(expectedKindString);
     var foundString =
-      kind == Token.Kind.IDENTIFIER ? quote(lookahead.getLexeme()) : quote(reverseLookup.get(kind));
+      kind == Token.Kind.IDENTIFIER ? quote(lookahead().getLexeme()) : quote(reverseLookup.get(kind));
     var message = "expected " + expectedString + ", but found " + foundString;
-    var error = new SyntaxError(sourceLines, message, lookahead);
-    System.out.println(error);
+    diagnostics.add(new SyntaxError(source, message, lookahead()));
   }
 
   private String friendlyKind (Token.Kind kind) {
@@ -330,14 +466,15 @@ public class Parser {
   // fail if there is a bug in the compiler.
 
   private Token confirm (Token.Kind expectedKind) {
-    if (lookahead.getKind() == expectedKind) {
-      LOGGER.info("confirmed " + lookahead);
-      var mark = lookahead;
+    if (kind == expectedKind) {
+      if (TRACE)
+        trace(ParseTracer.Event.CONFIRMED);
+      var mark = lookahead();
       consume();
       return mark;
     } else {
       var expectedKindFriendly = friendlyKind(expectedKind);
-      var actualKindFriendly = friendlyKind(lookahead.getKind());
+      var actualKindFriendly = friendlyKind(kind);
       var expectedMessage = "expected " + expectedKindFriendly;
       var foundMessage = ", but found " + actualKindFriendly;
       var message = expectedMessage + foundMessage;
@@ -345,12 +482,31 @@ public class Parser {
     }
   }
 
+  // Confirms a token the caller does not keep, without materializing it
+
+  private void skipConfirmed (Token.Kind expectedKind) {
+    if (kind == expectedKind) {
+      if (TRACE)
+        trace(ParseTracer.Event.CONFIRMED);
+      consume();
+    } else
+      confirm(expectedKind);
+  }
+
+  private void trace (ParseTracer.Event event) {
+    tracer.trace(event, kind, input.position());
+  }
+
   private void consume () {
-    position.increment();
-    if (position.get() < input.size()) {
-      lookahead = input.get(position.get());
-      kind = lookahead.getKind();
-    }
+    input.consume();
+    kind = input.kind();
+  }
+
+  // The current token is only materialized when it is needed for an AST node
+  // or a diagnostic. Everywhere else, the parser works with its kind alone.
+
+  private Token lookahead () {
+    return input.current();
   }
 
   // These should probably just be called "error" or something like that
@@ -387,14 +543,13 @@ public class Parser {
   }
 
   private void panic (String expectedString) {
-    LOGGER.info("panic triggered");
+    if (TRACE)
+      trace(ParseTracer.Event.PANIC_TRIGGERED);
     if (!errorRecoveryMode) {
       var foundString =
-        kind == Token.Kind.IDENTIFIER ? quote(lookahead.getLexeme()) : quote(reverseLookup.get(kind));
+        kind == Token.Kind.IDENTIFIER ? quote(lookahead().getLexeme()) : quote(reverseLookup.get(kind));
       var message = "expected " + expectedString + ", but found " + foundString;
-      var error = new SyntaxError(sourceLines, message, lookahead);
-      System.out.println("GOT HERE IN PANIC");
-      System.out.println(error);
+      diagnostics.add(new SyntaxError(source, message, lookahead()));
     }
     errorRecoveryMode = true;
   }
@@ -404,13 +559,17 @@ public class Parser {
   }
 
   public AstNode process () {
-    LOGGER.info("*** Parsing started... ***");
+    if (TRACE)
+      trace(ParseTracer.Event.PARSE_STARTED);
     var node = translationUnit();
     // EOF is the only token in the follow set of translationUnit. Must match
     // it to ensure there is no garbage left over.
-    match(Token.Kind.EOF);
+    skip(Token.Kind.EOF);
 
-    LOGGER.info("*** Parsing complete! ***");
+    if (TRACE) {
+      trace(ParseTracer.Event.PARSE_COMPLETE);
+      LOGGER.info("parse trace:\n{}", tracer);
+    }
     return node;
   }
 
@@ -454,7 +613,7 @@ public class Parser {
       var token = confirm(PACKAGE);
       var node = new PackageDeclaration(token);
       node.setPackageName(packageName());
-      match(SEMICOLON);
+      skip(SEMICOLON);
       checkOut(FollowSet.PACKAGE_DECLARATION, "'import', 'use', or start of other declaration");
       return node;
     }
@@ -476,7 +635,7 @@ public class Parser {
         n.addImportDeclaration(importDeclaration());
       else {
         panic("'import', 'use', or start of other declaration");
-        recover(union(FirstSet.IMPORT_DECLARATION, FollowSet.IMPORT_DECLARATIONS));
+        recover(IMPORT_DECLARATIONS_RECOVERY);
         cleanup();
       }
     }
@@ -505,7 +664,7 @@ public class Parser {
       else
         panic(AS, SEMICOLON);
     }
-    match(SEMICOLON);
+    skip(SEMICOLON);
     checkOut(FollowSet.IMPORT_DECLARATION, "'import', 'use', or start of other declaration");
     return node;
   }
@@ -515,7 +674,7 @@ public class Parser {
     node.addImportName(importName());
     while (kind != AS && kind != SEMICOLON) {
       if (kind == PERIOD) {
-        confirm(PERIOD);
+        skipConfirmed(PERIOD);
         node.addImportName(importName());
       } else {
         panic(PERIOD, AS, SEMICOLON);
@@ -531,7 +690,7 @@ public class Parser {
   }
 
   private ImportAsName importAsClause () {
-    confirm(AS);
+    skipConfirmed(AS);
     var token = match(Token.Kind.IDENTIFIER);
     return new ImportAsName(token);
   }
@@ -543,7 +702,7 @@ public class Parser {
         n.addUseDeclaration(useDeclaration());
       else {
         panic("'use' or start of other declaration");
-        recover(union(FirstSet.USE_DECLARATION, FollowSet.USE_DECLARATIONS));
+        recover(USE_DECLARATIONS_RECOVERY);
         cleanup();
       }
     }
@@ -558,7 +717,7 @@ public class Parser {
     var token = confirm(USE);
     var node = new UseDeclaration(token);
     node.setQualifiedName(useQualifiedName());
-    match(SEMICOLON);
+    skip(SEMICOLON);
     checkOut(FollowSet.USE_DECLARATION, "'use' or start of other declaration");
     return node;
   }
@@ -567,7 +726,7 @@ public class Parser {
     UseQualifiedName n = new UseQualifiedName();
     var p = useName();
     n.setUseName(p);
-    match(PERIOD);
+    skip(PERIOD);
     p.setChild(useQualifiedNameTail());
     return n;
   }
@@ -580,7 +739,7 @@ public class Parser {
     } else if (kind == Token.Kind.IDENTIFIER) {
       var n = useName();
       if (kind == PERIOD) {
-        confirm(PERIOD);
+        skipConfirmed(PERIOD);
         n.setChild(useQualifiedNameTail());
       }
       return n;
@@ -588,7 +747,7 @@ public class Parser {
       // For now, assume a use name was intended. Perhaps later we can try
       // phrase-level recovery to ascertain the intent more accurately.
       panic("identifier, '{', or '*'");
-      return new UseName(lookahead);
+      return new UseName(lookahead());
     }
   }
 
@@ -598,19 +757,19 @@ public class Parser {
   }
 
   private AstNode useNameGroup () {
-    confirm(L_BRACE);
+    skipConfirmed(L_BRACE);
     var n = new UseNameGroup();
     n.addUseName(useName());
     while (kind != R_BRACE) {
       if (kind == COMMA) {
-        confirm(COMMA);
+        skipConfirmed(COMMA);
         n.addUseName(useName());
       } else {
         panic(COMMA, R_BRACE);
         break;
       }
     }
-    match(R_BRACE);
+    skip(R_BRACE);
     return n;
   }
 
@@ -623,7 +782,17 @@ public class Parser {
 
   private OtherDeclarations otherDeclarations () {
     var n = new OtherDeclarations();
-    while (!FollowSet.OTHER_DECLARATIONS.contains(kind)) {
+    if (parallelDeclarations && !input.isStreaming() && !errorRecoveryMode)
+      parallelOtherDeclarations(n);
+    otherDeclarations(n, Integer.MAX_VALUE);
+    return n;
+  }
+
+  // Parses other declarations until the end of the file, or until the given
+  // position is reached
+
+  private void otherDeclarations (OtherDeclarations n, int end) {
+    while (input.position() < end && !FollowSet.OTHER_DECLARATIONS.contains(kind)) {
       if (
         kind == PRIVATE ||
         kind == CONST   ||
@@ -635,11 +804,113 @@ public class Parser {
         n.addOtherDeclaration(otherDeclaration());
       } else {
         panic("start of other declaration");
-        recover(union(FirstSet.OTHER_DECLARATION, FollowSet.OTHER_DECLARATIONS));
+        recover(OTHER_DECLARATIONS_RECOVERY);
         cleanup();
       }
     }
-    return n;
+  }
+
+  // A pre-scan splits the remaining tokens into chunks at brace depth zero,
+  // just before a token that can start a declaration and just after the ';'
+  // or '}' that ends the previous one. Each chunk is parsed by a parser of its
+  // own, and the declarations of each chunk are added in order.
+
+  // A parser that starts at a declaration boundary without errors behind it
+  // is in the same state as a serial parser at that point, so a chunk that
+  // parses without errors, and ends exactly at its boundary, yields the same
+  // declarations as parsing serially. At the first chunk that does not, the
+  // remaining chunks are thrown away and this parser carries on serially from
+  // the start of that chunk. Error recovery can cross chunk boundaries, so
+  // this keeps the diagnostics exactly the same as those of a serial parse.
+
+  private void parallelOtherDeclarations (OtherDeclarations n) {
+    var boundaries = declarationBoundaries();
+    if (boundaries.size() < 3)
+      return;
+    var tasks = new ArrayList<ForkJoinTask<Chunk>>(boundaries.size() - 1);
+    for (var i = 0; i < boundaries.size() - 1; i++) {
+      var start = boundaries.get(i);
+      var end = boundaries.get(i + 1);
+      tasks.add(ForkJoinTask.adapt(() -> chunk(start, end)));
+    }
+    ForkJoinTask.invokeAll(tasks);
+    for (var task : tasks) {
+      var chunk = task.join();
+      if (!chunk.clean)
+        break;
+      for (var declaration : chunk.declarations.getOtherDeclarations())
+        n.addOtherDeclaration(declaration);
+      deferredBodies.addAll(chunk.deferredBodies);
+      for (var position : chunk.errorPositions)
+        input.get(position).setError();
+      input.seek(chunk.end);
+      kind = input.kind();
+      inSubExpression = chunk.inSubExpression;
+    }
+  }
+
+  // Returns the positions at which chunks start, each at least CHUNK_TOKENS
+  // after the previous one, followed by the position of EOF
+
+  private List<Integer> declarationBoundaries () {
+    var buffer = input.getBuffer();
+    var boundaries = new ArrayList<Integer>();
+    var start = input.position();
+    boundaries.add(start);
+    var depth = 0;
+    var previous = SEMICOLON;
+    var i = start;
+    for (var k = buffer.getKind(i); k != Token.Kind.EOF; k = buffer.getKind(++i)) {
+      if (k == L_BRACE)
+        depth += 1;
+      else if (k == R_BRACE && depth > 0)
+        depth -= 1;
+      else if (
+        depth == 0 &&
+        (previous == SEMICOLON || previous == R_BRACE) &&
+        DECLARATION_START.contains(k) &&
+        i - boundaries.getLast() >= CHUNK_TOKENS
+      ) {
+        boundaries.add(i);
+      }
+      previous = k;
+    }
+    boundaries.add(i);
+    return boundaries;
+  }
+
+  private Chunk chunk (int start, int end) {
+    var parser = new Parser(new TokenStream(input.getBuffer(), start), source, new Diagnostics(), reverseLookup);
+    parser.lazyRoutineBodies = lazyRoutineBodies;
+    parser.deferredDiagnostics = deferredDiagnostics;
+    parser.errorPositions = new ArrayList<>();
+    var n = new OtherDeclarations();
+    parser.otherDeclarations(n, end);
+    var clean = parser.diagnostics.isEmpty() && !parser.errorRecoveryMode && parser.input.position() == end;
+    return new Chunk(n, end, clean, parser.inSubExpression, parser.deferredBodies, parser.errorPositions);
+  }
+
+  // Declarations parsed from one chunk, along with the state of the parser
+  // at the end of it
+
+  private static class Chunk {
+
+    final OtherDeclarations declarations;
+    final int end;
+    final boolean clean;
+    final boolean inSubExpression;
+    final ArrayList<RoutineBody> deferredBodies;
+    final ArrayList<Integer> errorPositions;
+
+    Chunk (OtherDeclarations declarations, int end, boolean clean, boolean inSubExpression, ArrayList<RoutineBody> deferredBodies, ArrayList<Integer> errorPositions) {
+      this.declarations = declarations;
+      this.end = end;
+      this.clean = clean;
+      this.inSubExpression = inSubExpression;
+      this.deferredBodies = deferredBodies;
+      this.errorPositions = errorPositions;
+    }
+
   }
 
   // We don't need a check-in for otherDeclaration because it is optional, so
@@ -729,7 +1000,7 @@ public class Parser {
     n.addChild(classModifiers());
     n.addChild(className());
     if (kind == EXTENDS)
-      n.addChild(baseClasses(EnumSet.of(L_BRACE)));
+      n.addChild(baseClasses(BASE_CLASSES_SYNC));
     else
       n.addChild(EPSILON);
     n.addChild(classBody());
@@ -752,13 +1023,13 @@ public class Parser {
   // "is-implemented-in-terms-of") inheritance is NOT supported. Most use cases
   // of private inheritance are better met by composition instead.
 
-  private AstNode baseClasses (EnumSet<Token.Kind> syncSet) {
-    confirm(EXTENDS);
+  private AstNode baseClasses (TokenSet syncSet) {
+    skipConfirmed(EXTENDS);
     var n = new BaseClasses();
     var token = match(Token.Kind.IDENTIFIER);
     n.addChild(new BaseClass(token));
     while (kind == COMMA) {
-      confirm(COMMA);
+      skipConfirmed(COMMA);
       token = match(Token.Kind.IDENTIFIER);
       n.addChild(new BaseClass(token));
     }
@@ -768,7 +1039,7 @@ public class Parser {
   // ClassBody is essentially equivalent to memberDeclarations
 
   private AstNode classBody () {
-    match(L_BRACE);
+    skip(L_BRACE);
     var n = new ClassBody();
     while (
       kind == PRIVATE ||
@@ -777,21 +1048,21 @@ public class Parser {
       kind == VAL     ||
       kind == VAR
     ) {
-      n.addChild(memberDeclaration(EnumSet.of(PRIVATE, CLASS, DEF, VAL, VAR, R_BRACE)));
+      n.addChild(memberDeclaration(MEMBER_DECLARATION_SYNC));
     }
-    match(R_BRACE);
+    skip(R_BRACE);
     return n;
   }
 
   // MEMBER DECLARATIONS
 
-  private Declaration memberDeclaration (EnumSet<Token.Kind> syncSet) {
+  private Declaration memberDeclaration (TokenSet syncSet) {
     AstNode accessSpecifier;
     if (kind == PRIVATE) {
-      confirm(PRIVATE);
+      skipConfirmed(PRIVATE);
       accessSpecifier = new MemberAccessSpecifier(mark2);
     } else if (kind == PROTECTED) {
-      confirm(PROTECTED);
+      skipConfirmed(PROTECTED);
       accessSpecifier = new MemberAccessSpecifier(mark2);
     } else {
       accessSpecifier = EPSILON;
@@ -831,38 +1102,38 @@ public class Parser {
   // semantic error?
 
   private Declaration memberTypealiasDeclaration (AstNode accessSpecifier) {
-    confirm(TYPEALIAS);
+    skipConfirmed(TYPEALIAS);
     var n = new MemberTypealiasDeclaration(mark2);
     n.addChild(accessSpecifier);
-    match(Token.Kind.IDENTIFIER);
+    skip(Token.Kind.IDENTIFIER);
     n.addChild(new TypealiasName(mark2));
-    match(EQUAL);
+    skip(EQUAL);
     n.addChild(declarator(Parser.Context.TYPEALIAS_DECLARATION));
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
   private Declaration memberRoutineDeclaration (AstNode accessSpecifier) {
-    confirm(DEF);
+    skipConfirmed(DEF);
     var n = new MemberRoutineDeclaration(mark2);
     n.addChild(accessSpecifier);
     n.addChild(memberRoutineModifiers());
-    match(Token.Kind.IDENTIFIER);
+    skip(Token.Kind.IDENTIFIER);
     n.addChild(new RoutineName(mark2));
     n.addChild(routineParameters());
     // No following set required here because these are completely optional
     n.addChild(cvQualifiers());
     if (kind == AMPERSAND) {
-      confirm(AMPERSAND);
+      skipConfirmed(AMPERSAND);
       n.addChild(new RefQualifier(mark2));
     } else if (kind == AMPERSAND_AMPERSAND) {
-      confirm(AMPERSAND_AMPERSAND);
+      skipConfirmed(AMPERSAND_AMPERSAND);
       n.addChild(new RefQualifier(mark2));
     } else {
       n.addChild(EPSILON);
     }
     if (kind == NOEXCEPT) {
-      confirm(NOEXCEPT);
+      skipConfirmed(NOEXCEPT);
       n.addChild(new NoexceptSpecifier(mark2));
     } else {
       n.addChild(EPSILON);
@@ -886,17 +1157,17 @@ public class Parser {
   private AstNode cvQualifiers () {
     var n = new CVQualifiers();
     if (kind == CONST) {
-      confirm(CONST);
+      skipConfirmed(CONST);
       n.addChild(new CVQualifier(mark2));
       if (kind == VOLATILE) {
-        confirm(VOLATILE);
+        skipConfirmed(VOLATILE);
         n.addChild(new CVQualifier(mark2));
       }
     } else if (kind == VOLATILE) {
-      confirm(VOLATILE);
+      skipConfirmed(VOLATILE);
       n.addChild(new CVQualifier(mark2));
       if (kind == CONST) {
-        confirm(CONST);
+        skipConfirmed(CONST);
         n.addChild(new CVQualifier(mark2));
       }
     }
@@ -904,11 +1175,11 @@ public class Parser {
   }
 
   private Declaration memberVariableDeclaration (AstNode accessSpecifier) {
-    confirm(kind == VAL ? VAL : VAR);
+    skipConfirmed(kind == VAL ? VAL : VAR);
     var n = new MemberVariableDeclaration(mark2);
     n.addChild(accessSpecifier);
     n.addChild(variableModifiers());
-    match(Token.Kind.IDENTIFIER);
+    skip(Token.Kind.IDENTIFIER);
     n.addChild(new VariableName(mark2));
     if (kind == COLON) {
       n.addChild(variableTypeSpecifier());
@@ -920,32 +1191,32 @@ public class Parser {
       n.addChild(EPSILON);
       n.addChild(variableInitializer());
     }
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
   // TYPEALIAS DECLARATION
 
   private Declaration typealiasDeclaration (AstNode exportSpecifier) {
-    confirm(TYPEALIAS);
+    skipConfirmed(TYPEALIAS);
     var n = new TypealiasDeclaration(mark2);
     n.addChild(exportSpecifier);
-    match(Token.Kind.IDENTIFIER);
+    skip(Token.Kind.IDENTIFIER);
     n.addChild(new TypealiasName(mark2));
-    match(EQUAL);
+    skip(EQUAL);
     n.addChild(declarator(Parser.Context.TYPEALIAS_DECLARATION));
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
   private Statement localTypealiasDeclaration () {
-    confirm(TYPEALIAS);
-    var n = new LocalTypealiasDeclaration(lookahead);
-    match(Token.Kind.IDENTIFIER);
+    skipConfirmed(TYPEALIAS);
+    var n = new LocalTypealiasDeclaration(lookahead());
+    skip(Token.Kind.IDENTIFIER);
     n.addChild(new TypealiasName(mark2));
-    match(EQUAL);
+    skip(EQUAL);
     n.addChild(declarator(Parser.Context.TYPEALIAS_DECLARATION));
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
@@ -1003,7 +1274,7 @@ public class Parser {
       if (kind == Token.Kind.IDENTIFIER) {
         n.addParameter(routineParameter());
         while (kind != R_PARENTHESIS) {
-          match(COMMA);
+          skip(COMMA);
           if (kind == Token.Kind.IDENTIFIER)
             n.addParameter(routineParameter());
           else
@@ -1013,7 +1284,7 @@ public class Parser {
         panic("parameter name or ')'");
       }
     }
-    match(R_PARENTHESIS);
+    skip(R_PARENTHESIS);
     return n;
   }
 
@@ -1032,7 +1303,7 @@ public class Parser {
   }
 
   private RoutineParameterTypeSpecifier routineParameterTypeSpecifier () {
-    match(COLON);
+    skip(COLON);
     var n = new RoutineParameterTypeSpecifier();
     n.setDeclarator(declarator(Parser.Context.ROUTINE_PARAMETER_TYPE_SPECIFIER));
     return n;
@@ -1044,7 +1315,7 @@ public class Parser {
   // qualifiers.
 
   private RoutineReturnTypeSpecifier routineReturnTypeSpecifier () {
-    confirm(MINUS_GREATER);
+    skipConfirmed(MINUS_GREATER);
     var n = new RoutineReturnTypeSpecifier();
     n.setDeclarator(declarator(Context.ROUTINE_RETURN_TYPE_SPECIFIER));
     return n;
@@ -1056,10 +1327,58 @@ public class Parser {
 
   private RoutineBody routineBody () {
     var n = new RoutineBody();
-    n.setCompoundStatement(compoundStatement());
+    if (lazyRoutineBodies && kind == L_BRACE && !input.isStreaming())
+      deferRoutineBody(n);
+    else
+      n.setCompoundStatement(compoundStatement());
     return n;
   }
 
+  // Skips to the brace that closes the body, and hands the body node a way to
+  // parse it later with a parser of its own, starting from the opening brace.
+  // If the braces never balance, the body is parsed right away instead, so
+  // that the error is reported where it occurs.
+
+  // The routine body may be parsed on any thread, after this parser is done.
+  // Its errors are collected separately and then added to the diagnostics of
+  // the file, holding the lock on them, after all errors found up front.
+
+  private void deferRoutineBody (RoutineBody n) {
+    var start = input.mark();
+    var depth = 0;
+    do {
+      if (kind == L_BRACE)
+        depth += 1;
+      else if (kind == R_BRACE)
+        depth -= 1;
+      else if (kind == Token.Kind.EOF)
+        break;
+      consume();
+    } while (depth > 0);
+    if (depth > 0) {
+      input.reset(start);
+      kind = input.kind();
+      n.setCompoundStatement(compoundStatement());
+    } else {
+      input.release(start);
+      var buffer = input.getBuffer();
+      var source = this.source;
+      var diagnostics = deferredDiagnostics;
+      var reverseLookup = this.reverseLookup;
+      n.setDeferredCompoundStatement(() -> {
+        var bodyDiagnostics = new Diagnostics();
+        var parser = new Parser(new TokenStream(buffer, start), source, bodyDiagnostics, reverseLookup);
+        parser.deferredDiagnostics = diagnostics;
+        var body = parser.compoundStatement();
+        synchronized (diagnostics) {
+          diagnostics.addAll(bodyDiagnostics);
+        }
+        return body;
+      });
+      deferredBodies.add(n);
+    }
+  }
+
   // VARIABLE DECLARATIONS
 
   // To do: variable initializer is being arrived at via a certain path and an
@@ -1090,7 +1409,7 @@ public class Parser {
         panic(COLON, EQUAL, SEMICOLON);
       }
     }
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
@@ -1107,14 +1426,14 @@ public class Parser {
   }
 
   private VariableTypeSpecifier variableTypeSpecifier () {
-    confirm(COLON);
+    skipConfirmed(COLON);
     var n = new VariableTypeSpecifier();
     n.setDeclarator(declarator(Parser.Context.VARIABLE_TYPE_SPECIFIER));
     return n;
   }
 
   private VariableInitializer variableInitializer () {
-    confirm(EQUAL);
+    skipConfirmed(EQUAL);
     var n = new VariableInitializer();
     n.setExpression(expression(true));
     return n;
@@ -1209,7 +1528,7 @@ public class Parser {
   private BreakStatement breakStatement () {
     var token = confirm(BREAK);
     var n = new BreakStatement(token);
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
@@ -1229,14 +1548,14 @@ public class Parser {
         break;
       }
     }
-    match(R_BRACE);
+    skip(R_BRACE);
     return n;
   }
 
   private ContinueStatement continueStatement () {
     var token = confirm(CONTINUE);
     var n = new ContinueStatement(token);
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
@@ -1271,7 +1590,7 @@ public class Parser {
 
   private Statement doStatement () {
     Statement n = null;
-    match(Token.Kind.DO);
+    skip(Token.Kind.DO);
     switch (kind) {
       case Token.Kind.UNTIL ->
         n = doUntilStatement();
@@ -1284,16 +1603,16 @@ public class Parser {
   }
 
   private DoUntilStatement doUntilStatement () {
-    var n = new DoUntilStatement(lookahead);
-    match(Token.Kind.UNTIL);
+    var n = new DoUntilStatement(lookahead());
+    skip(Token.Kind.UNTIL);
     n.addChild(statementCondition());
     n.addChild(statementBody());
     return n;
   }
 
   private DoWhileStatement doWhileStatement () {
-    var n = new DoWhileStatement(lookahead);
-    match(Token.Kind.WHILE);
+    var n = new DoWhileStatement(lookahead());
+    skip(Token.Kind.WHILE);
     n.addChild(statementCondition());
     n.addChild(statementBody());
     return n;
@@ -1328,31 +1647,31 @@ public class Parser {
   private ExpressionStatement expressionStatement () {
     var n = new ExpressionStatement();
     n.addChild(expression(true));
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
   private ForStatement forStatement () {
-    var n = new ForStatement(lookahead);
-    match(Token.Kind.FOR);
-    match(Token.Kind.L_PARENTHESIS);
+    var n = new ForStatement(lookahead());
+    skip(Token.Kind.FOR);
+    skip(Token.Kind.L_PARENTHESIS);
     n.addChild(forName());
-    match(Token.Kind.IN);
+    skip(Token.Kind.IN);
     n.addChild(expression(true));
-    match(Token.Kind.R_PARENTHESIS);
+    skip(Token.Kind.R_PARENTHESIS);
     n.addChild(statementBody());
     return n;
   }
 
   private AstNode forName () {
-    var n = new Name(lookahead);
-    match(Token.Kind.IDENTIFIER);
+    var n = new Name(lookahead());
+    skip(Token.Kind.IDENTIFIER);
     return n;
   }
 
   private IfStatement ifStatement () {
-    var n = new IfStatement(lookahead);
-    match(Token.Kind.IF);
+    var n = new IfStatement(lookahead());
+    skip(Token.Kind.IF);
     n.addChild(statementCondition());
     n.addChild(statementBody());
     if (kind == Token.Kind.ELSE)
@@ -1361,8 +1680,8 @@ public class Parser {
   }
 
   private AstNode elseClause () {
-    var n = new ElseClause(lookahead);
-    match(Token.Kind.ELSE);
+    var n = new ElseClause(lookahead());
+    skip(Token.Kind.ELSE);
     if (kind == Token.Kind.IF)
       n.addChild(ifStatement());
     else
@@ -1388,13 +1707,13 @@ public class Parser {
         panic(COLON, EQUAL, SEMICOLON);
       }
     }
-    match(SEMICOLON);
+    skip(SEMICOLON);
     return n;
   }
 
   private LoopStatement loopStatement () {
-    var n = new LoopStatement(lookahead);
-    match(Token.Kind.LOOP);
+    var n = new LoopStatement(lookahead());
+    skip(Token.Kind.LOOP);
     if (kind == Token.Kind.L_PARENTHESIS)
       n.addChild(loopControl());
     else
@@ -1404,14 +1723,14 @@ public class Parser {
   }
 
   private AstNode loopControl () {
-    var n = new LoopControl(lookahead);
-    match(Token.Kind.L_PARENTHESIS);
-    n.addChild(lookahead.getKind() != SEMICOLON ? loopInitializer() : null);
-    match(SEMICOLON);
-    n.addChild(lookahead.getKind() != SEMICOLON ? loopCondition() : null);
-    match(SEMICOLON);
-    n.addChild(lookahead.getKind() != Token.Kind.R_PARENTHESIS ? loopUpdate() : null);
-    match(Token.Kind.R_PARENTHESIS);
+    var n = new LoopControl(lookahead());
+    skip(Token.Kind.L_PARENTHESIS);
+    n.addChild(kind != SEMICOLON ? loopInitializer() : null);
+    skip(SEMICOLON);
+    n.addChild(kind != SEMICOLON ? loopCondition() : null);
+    skip(SEMICOLON);
+    n.addChild(kind != Token.Kind.R_PARENTHESIS ? loopUpdate() : null);
+    skip(Token.Kind.R_PARENTHESIS);
     return n;
   }
 
@@ -1449,11 +1768,11 @@ public class Parser {
   }
 
   private ReturnStatement returnStatement () {
-    var n = new ReturnStatement(lookahead);
-    match(Token.Kind.RETURN);
-    if (lookahead.getKind() != SEMICOLON) {
+    var n = new ReturnStatement(lookahead());
+    skip(Token.Kind.RETURN);
+    if (kind != SEMICOLON) {
       n.addChild(expression(true));
-      match(SEMICOLON);
+      skip(SEMICOLON);
     }
     return n;
   }
@@ -1469,8 +1788,8 @@ public class Parser {
   // will only support expressions, and use the rule as a passthrough.
 
   private UntilStatement untilStatement () {
-    var n = new UntilStatement(lookahead);
-    match(Token.Kind.UNTIL);
+    var n = new UntilStatement(lookahead());
+    skip(Token.Kind.UNTIL);
     n.addChild(statementCondition());
     n.addChild(statementBody());
     return n;
@@ -1480,17 +1799,17 @@ public class Parser {
   // will only support expressions, and use the rule as a passthrough.
 
   private WhileStatement whileStatement () {
-    var n = new WhileStatement(lookahead);
-    match(Token.Kind.WHILE);
+    var n = new WhileStatement(lookahead());
+    skip(Token.Kind.WHILE);
     n.addChild(statementCondition());
     n.addChild(statementBody());
     return n;
   }
 
   private AstNode statementCondition () {
-    match(Token.Kind.L_PARENTHESIS);
+    skip(Token.Kind.L_PARENTHESIS);
     var n = expression(true);
-    match(Token.Kind.R_PARENTHESIS);
+    skip(Token.Kind.R_PARENTHESIS);
     return n;
   }
 
@@ -1549,150 +1868,69 @@ public class Parser {
     return n;
   }
 
+  // Binary expressions are parsed by precedence climbing rather than by one
+  // method per precedence level. Each binary operator has a binding power,
+  // from one for assignment up to eleven for the multiplicative operators,
+  // and tokens that are not binary operators have a binding power of zero.
+  // The resulting tree is the same as that of the usual chain of methods, but
+  // a primary expression is reached in a couple of calls instead of a dozen.
+
+  // All binary operators are left-associative, including assignment, so the
+  // right operand is parsed at one more than the operator's binding power.
+
   // We may wish to add a 'walrus' operator (:=), which can be used inside a
   // conditional statement to indicate that the developer truly intends to have
   // an assignment rather than an equality check.
 
-  private Expression assignmentExpression () {
-    var n = logicalOrExpression();
-    while (
-      kind == EQUAL ||
-      kind == ASTERISK_EQUAL ||
-      kind == SLASH_EQUAL ||
-      kind == PERCENT_EQUAL ||
-      kind == PLUS_EQUAL ||
-      kind == MINUS_EQUAL ||
-      kind == LESS_LESS_EQUAL ||
-      kind == GREATER_GREATER_EQUAL ||
-      kind == AMPERSAND_EQUAL ||
-      kind == CARET_EQUAL ||
-      kind == BAR_EQUAL
-    ) {
-      var token = confirm(kind);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(logicalOrExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression logicalOrExpression () {
-    var n = logicalAndExpression();
-    while (kind == OR) {
-      var token = confirm(OR);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(logicalAndExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression logicalAndExpression () {
-    var n = inclusiveOrExpression();
-    while (kind == AND) {
-      var token = confirm(AND);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(inclusiveOrExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression inclusiveOrExpression () {
-    var n = exclusiveOrExpression();
-    while (kind == BAR) {
-      var token = confirm(BAR);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(exclusiveOrExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression exclusiveOrExpression () {
-    var n = andExpression();
-    while (kind == CARET) {
-      var token = confirm(CARET);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(andExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression andExpression () {
-    var n = equalityExpression();
-    while (kind == AMPERSAND) {
-      var token = confirm(AMPERSAND);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(equalityExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression equalityExpression () {
-    var n = relationalExpression();
-    while (kind == EQUAL_EQUAL || kind == EXCLAMATION_EQUAL) {
-      var token = confirm(kind);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(relationalExpression());
-      n = p;
-    }
-    return n;
+  private static final byte[] BINDING_POWER = new byte[Token.Kind.values().length];
+
+  static {
+    bind(1,
+      EQUAL,
+      ASTERISK_EQUAL,
+      SLASH_EQUAL,
+      PERCENT_EQUAL,
+      PLUS_EQUAL,
+      MINUS_EQUAL,
+      LESS_LESS_EQUAL,
+      GREATER_GREATER_EQUAL,
+      AMPERSAND_EQUAL,
+      CARET_EQUAL,
+      BAR_EQUAL
+    );
+    bind(2, OR);
+    bind(3, AND);
+    bind(4, BAR);
+    bind(5, CARET);
+    bind(6, AMPERSAND);
+    bind(7, EQUAL_EQUAL, EXCLAMATION_EQUAL);
+    bind(8, GREATER, LESS, GREATER_EQUAL, LESS_EQUAL);
+    bind(9, GREATER_GREATER, LESS_LESS);
+    bind(10, PLUS, MINUS);
+    bind(11, ASTERISK, SLASH, PERCENT);
+  }
+
+  private static void bind (int power, Token.Kind... kinds) {
+    for (var kind : kinds)
+      BINDING_POWER[kind.ordinal()] = (byte) power;
   }
 
-  private Expression relationalExpression () {
-    var n = shiftExpression();
-    while (kind == GREATER || kind == LESS || kind == GREATER_EQUAL || kind == LESS_EQUAL) {
-      var token = confirm(kind);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(shiftExpression());
-      n = p;
-    }
-    return n;
+  private Expression assignmentExpression () {
+    return binaryExpression(1);
   }
 
-  private Expression shiftExpression () {
-    var n = additiveExpression();
-    while (kind == GREATER_GREATER || kind == LESS_LESS) {
-      var token = confirm(kind);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(additiveExpression());
-      n = p;
-    }
-    return n;
-  }
+  // Parses a unary expression followed by any binary operators that bind at
+  // least as tightly as the given power
 
-  private Expression additiveExpression () {
-    var n = multiplicativeExpression();
-    while (kind == PLUS || kind == MINUS) {
-      var token = confirm(kind);
-      var p = new BinaryExpression(token);
-      p.setLeft(n);
-      p.setRight(multiplicativeExpression());
-      n = p;
-    }
-    return n;
-  }
-
-  private Expression multiplicativeExpression () {
+  private Expression binaryExpression (int minimumPower) {
     var n = unaryExpression();
     inSubExpression = true;
-    while (kind == ASTERISK || kind == SLASH || kind == PERCENT) {
+    int power;
+    while ((power = BINDING_POWER[kind.ordinal()]) >= minimumPower) {
       var token = confirm(kind);
       var p = new BinaryExpression(token);
       p.setLeft(n);
-      p.setRight(unaryExpression());
+      p.setRight(binaryExpression(power + 1));
       n = p;
     }
     return n;
@@ -1724,14 +1962,14 @@ public class Parser {
   }
 
   private Expression castExpression () {
-    var n = new CastExpression(lookahead);
-    match(lookahead.getKind());
-    match(Token.Kind.LESS);
+    var n = new CastExpression(lookahead());
+    skip(kind);
+    skip(Token.Kind.LESS);
     n.addChild(declarator(Parser.Context.CAST_EXPRESSION));
-    match(Token.Kind.GREATER);
-    match(Token.Kind.L_PARENTHESIS);
+    skip(Token.Kind.GREATER);
+    skip(Token.Kind.L_PARENTHESIS);
     n.addChild(expression(true));
-    match(Token.Kind.R_PARENTHESIS);
+    skip(Token.Kind.R_PARENTHESIS);
     return n;
   }
 
@@ -1743,20 +1981,20 @@ public class Parser {
   // match.
 
   private Expression deleteExpression () {
-    var n = new DeleteExpression(lookahead);
-    match(Token.Kind.DELETE);
+    var n = new DeleteExpression(lookahead());
+    skip(Token.Kind.DELETE);
     if (kind == Token.Kind.L_BRACKET) {
       n.setArrayFlag();
-      match(Token.Kind.L_BRACKET);
-      match(Token.Kind.R_BRACKET);
+      skip(Token.Kind.L_BRACKET);
+      skip(Token.Kind.R_BRACKET);
     }
     n.addChild(expression(true));
     return n;
   }
 
   private Expression newExpression () {
-    var n = new NewExpression(lookahead);
-    match(Token.Kind.NEW);
+    var n = new NewExpression(lookahead());
+    skip(Token.Kind.NEW);
     n.addChild(kind == Token.Kind.L_BRACKET ? newPlacement() : null);
     n.addChild(declarator(Parser.Context.NEW_EXPRESSION));
     n.addChild(kind == Token.Kind.L_PARENTHESIS ? newInitializer() : null);
@@ -1764,21 +2002,21 @@ public class Parser {
   }
 
   private AstNode newPlacement () {
-    match(Token.Kind.L_BRACKET);
+    skip(Token.Kind.L_BRACKET);
     var n = expression(true);
-    match(Token.Kind.R_BRACKET);
+    skip(Token.Kind.R_BRACKET);
     return n;
   }
 
   private AstNode newInitializer () {
-    var n = new NewInitializer(lookahead);
-    match(Token.Kind.L_PARENTHESIS);
+    var n = new NewInitializer(lookahead());
+    skip(Token.Kind.L_PARENTHESIS);
     n.addChild(expression(true));
     while (kind == Token.Kind.COMMA) {
-      match(Token.Kind.COMMA);
+      skip(Token.Kind.COMMA);
       n.addChild(expression(true));
     }
-    match(Token.Kind.R_PARENTHESIS);
+    skip(Token.Kind.R_PARENTHESIS);
     return n;
   }
 
@@ -1818,17 +2056,17 @@ public class Parser {
   }
 
   private AstNode arraySubscript (AstNode nameExpr) {
-    var node = new ArraySubscript(lookahead);
-    match(Token.Kind.L_BRACKET);
+    var node = new ArraySubscript(lookahead());
+    skip(Token.Kind.L_BRACKET);
     node.addChild(nameExpr);
     node.addChild(expression(false));
-    match(Token.Kind.R_BRACKET);
+    skip(Token.Kind.R_BRACKET);
     return node;
   }
 
   private Expression dereferencingMemberAccess (AstNode nameExpr) {
-    var node = new DereferencingMemberAccess(lookahead);
-    match(Token.Kind.MINUS_GREATER);
+    var node = new DereferencingMemberAccess(lookahead());
+    skip(Token.Kind.MINUS_GREATER);
     node.addChild(nameExpr);
     node.addChild(name());
     return node;
@@ -1839,8 +2077,8 @@ public class Parser {
   // namespacing of packages.
 
   private AstNode memberAccess (AstNode nameExpr) {
-    var node = new MemberAccess(lookahead);
-    match(Token.Kind.PERIOD);
+    var node = new MemberAccess(lookahead());
+    skip(Token.Kind.PERIOD);
     node.addChild(nameExpr);
     node.addChild(name());
     return node;
@@ -1852,23 +2090,23 @@ public class Parser {
   // distinguish between all these types of routines using different keywords.
 
   private AstNode routineCall (AstNode nameExpr) {
-    var node = new RoutineCall(lookahead);
+    var node = new RoutineCall(lookahead());
     node.addChild(nameExpr);
     node.addChild(routineArguments());
     return node;
   }
 
   private AstNode routineArguments () {
-    var node = new RoutineArguments(lookahead);
-    match(Token.Kind.L_PARENTHESIS);
-    if (lookahead.getKind() != Token.Kind.R_PARENTHESIS) {
+    var node = new RoutineArguments(lookahead());
+    skip(Token.Kind.L_PARENTHESIS);
+    if (kind != Token.Kind.R_PARENTHESIS) {
       node.addChild(routineArgument());
       while (kind == Token.Kind.COMMA) {
-        match(Token.Kind.COMMA);
+        skip(Token.Kind.COMMA);
         node.addChild(routineArgument());
       }
     }
-    match(Token.Kind.R_PARENTHESIS);
+    skip(Token.Kind.R_PARENTHESIS);
     return node;
   }
 
@@ -1974,15 +2212,15 @@ public class Parser {
   // pointer.
 
   private Expression this_ () {
-    var n = new This(lookahead);
-    match(THIS);
+    var n = new This(lookahead());
+    skip(THIS);
     return n;
   }
 
   private Expression parenthesizedExpression () {
-    match(L_PARENTHESIS);
+    skip(L_PARENTHESIS);
     var n = expression(false);
-    match(R_PARENTHESIS);
+    skip(R_PARENTHESIS);
     return n;
   }
 
@@ -2056,9 +2294,9 @@ public class Parser {
   }
 
   private Declarator parenthesizedType () {
-    confirm(L_PARENTHESIS);
+    skipConfirmed(L_PARENTHESIS);
     var n = declarator(Parser.Context.PARENTHESIZED_DECLARATOR);
-    match(R_PARENTHESIS);
+    skip(R_PARENTHESIS);
     return n;
   }
 
@@ -2074,7 +2312,7 @@ public class Parser {
     var token = confirm(CARET);
     var n = new RoutinePointerType(token);
     n.setRoutinePointerTypeParameters(routinePointerTypeParameters());
-    match(MINUS_GREATER);
+    skip(MINUS_GREATER);
     // Now need to match return type declarator
     return n;
   }
@@ -2087,11 +2325,11 @@ public class Parser {
       n.addRoutinePointerTypeParameter(routinePointerTypeParameter());
     }
     while (kind != R_PARENTHESIS) {
-      match(COMMA);
+      skip(COMMA);
       // Need if declarator first set vs. error cond
       n.addRoutinePointerTypeParameter(routinePointerTypeParameter());
     }
-    match(R_PARENTHESIS);
+    skip(R_PARENTHESIS);
     return n;
   }
 
@@ -2219,36 +2457,30 @@ public class Parser {
     var n = new ArrayDeclarator(token);
     if (kind != R_BRACKET)
       n.setExpression(expression(Parser.Context.ARRAY_DECLARATOR));
-    match(R_BRACKET);
+    skip(R_BRACKET);
     return n;
   }
 
-  private static EnumSet<Token.Kind> union (EnumSet<Token.Kind> a, EnumSet<Token.Kind> b) {
-    var combined = EnumSet.copyOf(a);
-    combined.addAll(b);
-    return combined;
-  }
-
   /*
   // Should the template instantiation token be the opening angle bracket? That will also be used by the template
   // arguments node.
 
   private Type templateInstantiation (Type nomType) {
-    var n = new TemplateInstantiation(lookahead);
+    var n = new TemplateInstantiation(lookahead());
     n.addChild(nomType);
     n.addChild(templateArguments());
     return n;
   }
 
   private AstNode templateArguments () {
-    var n = new TemplateArguments(lookahead);
-    match(Token.Kind.LESS);
+    var n = new TemplateArguments(lookahead());
+    skip(Token.Kind.LESS);
     n.addChild(templateArgument());
     while (kind == Token.Kind.COMMA) {
-      match(Token.Kind.COMMA);
+      skip(Token.Kind.COMMA);
       n.addChild(templateArgument());
     }
-    match(Token.Kind.GREATER);
+    skip(Token.Kind.GREATER);
     return n;
   }
 
@@ -2267,7 +2499,7 @@ public class Parser {
   // I think we need to keep track of whether it is a root node here
 
   private AstNode templateArgument () {
-    var n = new TemplateArgument(lookahead);
+    var n = new TemplateArgument(lookahead());
     n.addChild(type());
     return n;
   }
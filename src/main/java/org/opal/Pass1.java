@@ -6,6 +6,8 @@ import org.opal.ast.expression.*;
 import org.opal.ast.statement.*;
 import org.opal.ast.type.*;
 
+import java.util.EnumSet;
+
 // The purpose of this pass is to print the AST
 
 // We cannot use a generic "visit" method that takes an AST node because it
@@ -26,8 +28,35 @@ public class Pass1 extends BaseVisitor {
   }
 
   public void process () {
+    traverse();
+  }
+
+  // Types are printed along with expressions
+
+  public EnumSet<PassManager.Attribute> reads () {
+    return EnumSet.of(PassManager.Attribute.EXPRESSION_TYPES);
+  }
+
+  public boolean isFusible () {
+    return true;
+  }
+
+  // Everything up to the other declarations is printed before they are
+  // visited, and the other declarations are indented under their header
+
+  public void begin () {
     System.out.println("---");
-    visit((TranslationUnit)root);
+    var node = (TranslationUnit)root;
+    printNode(node);
+    visit(node.getPackageDeclaration());
+    visit(node.getImportDeclarations());
+    visit(node.getUseDeclarations());
+    depth.increment();
+    printNode(node.getOtherDeclarations());
+  }
+
+  public void end () {
+    depth.decrement();
   }
 
   public void printNode (AstNode node) {
@@ -61,14 +90,6 @@ public class Pass1 extends BaseVisitor {
     System.out.println(spaces + "- " + e + className + (token != null ? ": " + token : "") + " -> " + type);
   }
 
-  public void visit (TranslationUnit node ) {
-    printNode(node);
-    visit(node.getPackageDeclaration());
-    visit(node.getImportDeclarations());
-    visit(node.getUseDeclarations());
-    visit(node.getOtherDeclarations());
-  }
-
   // DECLARATIONS
 
   public void visit (PackageDeclaration node) {
@@ -6,6 +6,8 @@ import org.opal.symbol.*;
 import org.opal.type.PrimitiveType;
 import org.opal.type.Type;
 
+import java.util.EnumSet;
+
 // The purpose of this pass is to add types to the symbol table.
 
 // Note: For now, this just adds built-in types. Other types can be added
@@ -16,28 +18,42 @@ public class Pass10 extends BaseVisitor {
 
   private Scope currentScope = null;
 
-  public Pass10 (AstNode input) {
+  private final IdentifierTable identifiers;
+
+  public Pass10 (AstNode input, IdentifierTable identifiers) {
     super(input);
+    this.identifiers = identifiers;
+  }
+
+  // Built-in names are interned in the same table as the names in the source
+  // so that they resolve by id like any other name
+
+  private TypeSymbol builtIn (String name, Type type) {
+    return new TypeSymbol(name, identifiers.intern(name), type);
+  }
+
+  public EnumSet<PassManager.Attribute> writes () {
+    return EnumSet.of(PassManager.Attribute.SCOPES, PassManager.Attribute.SYMBOLS);
   }
 
   public void process () {
     // Define primitive types in built-in scope
     var scope = new Scope(Scope.Kind.BUILT_IN);
-    scope.define(new TypeSymbol("bool", PrimitiveType.BOOL));
-    scope.define(new TypeSymbol("float", PrimitiveType.FLOAT));
-    scope.define(new TypeSymbol("float32", PrimitiveType.FLOAT32));
-    scope.define(new TypeSymbol("float64", PrimitiveType.FLOAT64));
-    scope.define(new TypeSymbol("int", PrimitiveType.INT));
-    scope.define(new TypeSymbol("int8", PrimitiveType.INT8));
-    scope.define(new TypeSymbol("int16", PrimitiveType.INT16));
-    scope.define(new TypeSymbol("int32", PrimitiveType.INT32));
-    scope.define(new TypeSymbol("int64", PrimitiveType.INT64));
-    scope.define(new TypeSymbol("uint", PrimitiveType.UINT));
-    scope.define(new TypeSymbol("uint8", PrimitiveType.UINT8));
-    scope.define(new TypeSymbol("uint16", PrimitiveType.UINT16));
-    scope.define(new TypeSymbol("uint32", PrimitiveType.UINT32));
-    scope.define(new TypeSymbol("uint64", PrimitiveType.UINT64));
-    scope.define(new TypeSymbol("void", PrimitiveType.VOID));
+    scope.define(builtIn("bool", PrimitiveType.BOOL));
+    scope.define(builtIn("float", PrimitiveType.FLOAT));
+    scope.define(builtIn("float32", PrimitiveType.FLOAT32));
+    scope.define(builtIn("float64", PrimitiveType.FLOAT64));
+    scope.define(builtIn("int", PrimitiveType.INT));
+    scope.define(builtIn("int8", PrimitiveType.INT8));
+    scope.define(builtIn("int16", PrimitiveType.INT16));
+    scope.define(builtIn("int32", PrimitiveType.INT32));
+    scope.define(builtIn("int64", PrimitiveType.INT64));
+    scope.define(builtIn("uint", PrimitiveType.UINT));
+    scope.define(builtIn("uint8", PrimitiveType.UINT8));
+    scope.define(builtIn("uint16", PrimitiveType.UINT16));
+    scope.define(builtIn("uint32", PrimitiveType.UINT32));
+    scope.define(builtIn("uint64", PrimitiveType.UINT64));
+    scope.define(builtIn("void", PrimitiveType.VOID));
     currentScope = scope;
     visit((TranslationUnit)root);
   }
@@ -19,14 +19,10 @@ import org.opal.state.ImportAliasContext;
 
 import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.List;
 
 public class Pass110 extends BaseVisitor {
 
-  private final List<String> sourceLines;
-
-  // Stack for keeping track of current node path
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
+  private final SourceFile source;
 
   // Stack for passing name information up and down during traversal
   private final LinkedList<String> nameStack = new LinkedList<>();
@@ -38,9 +34,9 @@ public class Pass110 extends BaseVisitor {
   // This last option actually sounds like the best plan.
   private final HashMap<String, ImportAliasContext> aliasMachineTable = new HashMap<>();
 
-  public Pass110 (AstNode input, List<String> sourceLines) {
+  public Pass110 (AstNode input, SourceFile source) {
     super(input);
-    this.sourceLines = sourceLines;
+    this.source = source;
   }
 
   public void process () {
@@ -48,9 +44,7 @@ public class Pass110 extends BaseVisitor {
   }
 
   public void visit (AstNode node) {
-    nodePath.push(node);
     node.accept(this);
-    nodePath.pop();
   }
 
   public void visit (TranslationUnit node) {
@@ -72,7 +66,7 @@ public class Pass110 extends BaseVisitor {
       var alias = entry.getKey();
       var machine = entry.getValue();
       if (machine.getErrorBit()) {
-        var error = new SemanticError(sourceLines, "duplicate import alias", machine.getNode().asName().getToken());
+        var error = new SemanticError(source, "duplicate import alias", machine.getNode().asName().getToken());
         System.out.println(error);
       } else {
         if (machine.getNode() != null) {
@@ -3,7 +3,6 @@ package org.opal;
 import org.opal.ast.AstNode;
 import org.opal.ast.TranslationUnit;
 import org.opal.ast.declaration.*;
-import java.util.LinkedList;
 import java.util.List;
 
 // The purpose of this pass is to create import declarations from use
@@ -13,9 +12,6 @@ public class Pass120 extends BaseResultVisitor<AstNode> {
 
   private final List<String> sourceLines;
 
-  // Stack for keeping track of current node path
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
-
   public Pass120 (AstNode input, List<String> sourceLines) {
     super(input);
     this.sourceLines = sourceLines;
@@ -28,10 +24,7 @@ public class Pass120 extends BaseResultVisitor<AstNode> {
   }
 
   public AstNode visit (AstNode node) {
-    nodePath.push(node);
-    var n = node.accept(this);
-    nodePath.pop();
-    return n;
+    return node.accept(this);
   }
 
   @Override
@@ -55,7 +48,7 @@ public class Pass120 extends BaseResultVisitor<AstNode> {
 
   @Override
   public AstNode visit (UseDeclarations node) {
-    var n = ((Declarations)nodePath.get(1)).importDeclarations();
+    var n = ((Declarations)node.getParent()).importDeclarations();
     for (var useDeclaration : node.getChildren())
       n.addChild(visit(useDeclaration));
     return null;
@@ -3,9 +3,10 @@ package org.opal;
 import org.opal.ast.AstNode;
 import org.opal.ast.TranslationUnit;
 import org.opal.ast.declaration.*;
-import org.opal.ast.statement.CompoundStatement;
+import org.opal.ast.statement.*;
 import org.opal.symbol.*;
 
+import java.util.EnumSet;
 import java.util.LinkedList;
 
 // DEFINE
@@ -19,8 +20,6 @@ import java.util.LinkedList;
 
 public class Pass20 extends BaseVisitor {
 
-  private final LinkedList<AstNode> nodePath = new LinkedList<>();
-
   private final LinkedList<RoutineParameter> parameterStack = new LinkedList<>();
 
   // Built-in and global scopes were already created in previous pass
@@ -31,73 +30,69 @@ public class Pass20 extends BaseVisitor {
   }
 
   public void process () {
-    System.out.println("PASS 20");
-    visit((TranslationUnit)root);
+    traverse();
+  }
+
+  public EnumSet<PassManager.Attribute> reads () {
+    return EnumSet.of(PassManager.Attribute.SCOPES);
+  }
+
+  public EnumSet<PassManager.Attribute> writes () {
+    return EnumSet.of(PassManager.Attribute.SCOPES, PassManager.Attribute.SYMBOLS);
+  }
+
+  public boolean isFusible () {
+    return true;
   }
 
-  public void visit (TranslationUnit node ) {
-    nodePath.push(node);
+  public void begin () {
+    System.out.println("PASS 20");
+    var node = (TranslationUnit)root;
     currentScope = node.getScope();
     node.getPackageDeclaration().accept(this);
-    node.getOtherDeclarations().accept(this);
-    nodePath.pop();
   }
 
   // DECLARATIONS
 
   public void visit (PackageDeclaration node) {
-    nodePath.push(node);
     // Create package-level scope
     var scope = new Scope(Scope.Kind.PACKAGE);
     node.setScope(scope);
     scope.setEnclosingScope(currentScope);
     currentScope = scope;
-    nodePath.pop();
   }
 
   public void visit (OtherDeclarations node ) {
-    nodePath.push(node);
     for (var otherDeclaration : node.getOtherDeclarations())
       otherDeclaration.accept(this);
-    nodePath.pop();
   }
 
   public void visit (RoutineDeclaration node) {
-    nodePath.push(node);
     node.getName().accept(this);
     node.getParameters().accept(this);
     node.getBody().accept(this);
-    nodePath.pop();
   }
 
   public void visit (RoutineName node) {
-    nodePath.push(node);
-    var symbol = new RoutineSymbol(node.getToken().getLexeme());
+    var symbol = new RoutineSymbol(node.getToken().getLexeme(), node.getToken().getId());
     currentScope.define(symbol);
-    nodePath.pop();
   }
 
   public void visit (RoutineParameters node) {
-    nodePath.push(node);
     for (var routineParameter : node.children())
       routineParameter.accept(this);
-    nodePath.pop();
   }
 
   // We use a stack to facilitate capturing routine parameters in the top-most
   // block scope of the routine.
 
   public void visit (RoutineParameter node) {
-    nodePath.push(node);
     parameterStack.push(node);
-    nodePath.pop();
   }
 
   public void visit (RoutineParameterName node) {
-    nodePath.push(node);
-    var symbol = new VariableSymbol(node.getToken().getLexeme());
+    var symbol = new VariableSymbol(node.getToken().getLexeme(), node.getToken().getId());
     currentScope.define(symbol);
-    nodePath.pop();
   }
 
   // Normally, in C++ the function body is just a compound statement. However,
@@ -110,37 +105,30 @@ public class Pass20 extends BaseVisitor {
   // parent node is. For now, we will do the latter.
 
   public void visit (RoutineBody node) {
-    nodePath.push(node);
     node.getCompoundStatement().accept(this);
-    nodePath.pop();
   }
 
   public void visit (VariableDeclaration node ) {
-    nodePath.push(node);
     node.getName().accept(this);
-    nodePath.pop();
   }
 
   // Variable symbol should have a link to the AST node and AST node should
   // have a link to the symbol. Why?
 
   public void visit (VariableName node) {
-    nodePath.push(node);
-    var symbol = new VariableSymbol(node.getToken().getLexeme());
+    var symbol = new VariableSymbol(node.getToken().getLexeme(), node.getToken().getId());
     currentScope.define(symbol);
-    nodePath.pop();
   }
 
   // STATEMENTS
 
   public void visit (CompoundStatement node) {
-    nodePath.push(node);
     var scope = new Scope(Scope.Kind.BLOCK);
     scope.setEnclosingScope(currentScope);
     currentScope = scope;
     node.setScope(currentScope);
     // If the parent is routine body then process parameters
-    var parent = nodePath.get(1);
+    var parent = node.getParent();
     if (parent instanceof RoutineBody) {
       while (!parameterStack.isEmpty()) {
         var param = parameterStack.pop();
@@ -153,13 +141,27 @@ public class Pass20 extends BaseVisitor {
     for (var statement : node.getStatements())
       statement.accept(this);
     currentScope = scope.getEnclosingScope();
-    nodePath.pop();
   }
 
   public void visit (LocalVariableDeclarationStatement node) {
-    nodePath.push(node);
     node.getName().accept(this);
-    nodePath.pop();
+  }
+
+  // Nested compound statements get block scopes of their own, enclosed by the
+  // scope of the statement they appear in
+
+  public void visit (ElseClause node) {
+    node.elseBody().accept(this);
+  }
+
+  public void visit (ForStatement node) {
+    node.forBody().accept(this);
+  }
+
+  public void visit (IfStatement node) {
+    node.ifBody().accept(this);
+    if (node.getChildCount() > 2)
+      node.elseClause().accept(this);
   }
 
 }
@@ -1,11 +1,14 @@
 package org.opal;
 
 import org.opal.ast.*;
+import org.opal.ast.expression.IntegerLiteral;
 import org.opal.ast.declaration.*;
 import org.opal.ast.type.*;
 import org.opal.symbol.*;
 import org.opal.type.*;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedList;
 
 // The purpose of this pass is to construct type expressions from declarators.
@@ -21,27 +24,48 @@ import java.util.LinkedList;
 
 public class Pass30 extends BaseVisitor {
 
-  private Scope currentScope;
+  // Names are resolved against the scopes entered so far
+  private final Resolver resolver = new Resolver();
+
+  private final TypeTable types;
 
   private final LinkedList<Type> typeQueue = new LinkedList<>();
   private final LinkedList<Type> typeList = new LinkedList<>();
 
-  public Pass30 (AstNode input) {
+  // Pointer and array declarators seen so far in the current declarator, in
+  // the order they are applied to the base type
+  private final LinkedList<Declarator> derivationQueue = new LinkedList<>();
+
+  public Pass30 (AstNode input, TypeTable types) {
     super(input);
+    this.types = types;
   }
 
   public void process () {
-    System.out.println("PASS 30");
-    visit((TranslationUnit)root);
+    traverse();
+  }
+
+  public EnumSet<PassManager.Attribute> reads () {
+    return EnumSet.of(PassManager.Attribute.SCOPES, PassManager.Attribute.SYMBOLS);
+  }
+
+  public EnumSet<PassManager.Attribute> writes () {
+    return EnumSet.of(PassManager.Attribute.DECLARATOR_TYPES);
+  }
+
+  public boolean isFusible () {
+    return true;
   }
 
-  public void visit (TranslationUnit node ) {
+  public void begin () {
+    System.out.println("PASS 30");
+    var node = (TranslationUnit)root;
+    resolver.enterAll(node.getScope());
     node.getPackageDeclaration().accept(this);
-    node.getOtherDeclarations().accept(this);
   }
 
   public void visit (PackageDeclaration node) {
-    currentScope = node.getScope();
+    resolver.enter(node.getScope());
   }
 
   public void visit (OtherDeclarations node ) {
@@ -49,30 +73,31 @@ public class Pass30 extends BaseVisitor {
       otherDeclaration.accept(this);
   }
 
+  // The routine type is assembled once the parameter and return types are
+  // known. A routine without a return type specifier returns void.
+
   public void visit (RoutineDeclaration node) {
     node.getParameters().accept(this);
-    node.getName().accept(this);
+    var symbol = (RoutineSymbol)resolver.resolve(node.getName().getToken().getId());
+    var parameterTypes = new ArrayList<Type>(typeList);
+    typeList.clear();
+    for (var parameterType : parameterTypes)
+      symbol.addParameterType(parameterType);
+    var returnType = PrimitiveType.VOID;
     if (node.hasReturnTypeSpecifier()) {
       node.getReturnTypeSpecifier().accept(this);
-      node.getName().accept(this);
+      returnType = typeQueue.remove();
+      symbol.setReturnType(returnType);
     }
-  }
-
-  private final Counter routineNameCounter = new Counter();
-
-  public void visit (RoutineName node) {
-    var count = routineNameCounter.get();
-    if (count == 0) {
-      System.out.println(typeList.size());
-      var symbol = currentScope.resolve(node.getToken().getLexeme(), true);
-      while (!typeList.isEmpty())
-        ((RoutineSymbol) symbol).addParameterType(typeList.remove());
-    } else if (count == 1) {
-      System.out.println(typeQueue.size());
-      var symbol = currentScope.resolve(node.getToken().getLexeme(), true);
-      ((RoutineSymbol)symbol).setReturnType(typeQueue.remove());
+    symbol.setType(types.routine(returnType, parameterTypes));
+    // Pass20 defined the parameters in the top-most block scope of the body,
+    // where Pass40 finds them when it types the body
+    var scope = node.getBody().getCompoundStatement().getScope();
+    var i = 0;
+    for (var parameter : node.getParameters().children()) {
+      var parameterSymbol = (VariableSymbol)scope.resolve(parameter.getName().getToken().getId(), false);
+      parameterSymbol.setType(parameterTypes.get(i++));
     }
-    routineNameCounter.increment();
   }
 
   public void visit (RoutineParameters node) {
@@ -101,7 +126,7 @@ public class Pass30 extends BaseVisitor {
   }
 
   public void visit (VariableName node) {
-    var symbol = currentScope.resolve(node.getToken().getLexeme(), true);
+    var symbol = resolver.resolve(node.getToken().getId());
     ((VariableSymbol)symbol).setType(typeQueue.remove());
   }
 
@@ -121,11 +146,21 @@ public class Pass30 extends BaseVisitor {
   }
 
   public void visit (ArrayDeclarator node) {
-    var type = new ArrayType();
-    // Hard code size for now. This will eventually just be a reference to an
-    // AST node representing the root of an expression sub-tree.
-//    type.setSize(12);
-    typeQueue.add(type);
+    derivationQueue.add(node);
+  }
+
+  // Constant expressions cannot be evaluated yet, so only a size given as a
+  // plain integer literal is recorded, using the value the lexer computed.
+
+  private long arraySize (ArrayDeclarator node) {
+    if (!node.hasExpression())
+      return ArrayType.UNKNOWN_SIZE;
+    var expression = node.getExpression();
+    if (expression.getSubExpression() != null)
+      expression = expression.getSubExpression();
+    if (!(expression instanceof IntegerLiteral literal) || literal.getValue() < 0)
+      return ArrayType.UNKNOWN_SIZE;
+    return literal.getValue();
   }
 
 //  public void visit (NominalDeclarator node) {
@@ -141,24 +176,22 @@ public class Pass30 extends BaseVisitor {
   }
 
   public void visit (PointerDeclarator node) {
-    var type = new PointerType();
-    typeQueue.add(type);
+    derivationQueue.add(node);
   }
 
   public void visit (PrimitiveDeclarator node) {
-    var symbol = currentScope.resolve(node.getToken().getLexeme(), true);
+    var symbol = resolver.resolve(node.getToken().getId());
     // The symbol is guaranteed a type symbol because the resolve call is being
     // made from a method that could only be arrived at from a declarator.
-    var current = ((TypeSymbol)symbol).getType();
-    while (!typeQueue.isEmpty()) {
-      var next = typeQueue.remove();
-      if (next.getKind() == Type.Kind.ARRAY) {
-        ((ArrayType)next).setElementType(current);
-        current = next;
-      } else if (next.getKind() == Type.Kind.POINTER) {
-        ((PointerType)next).setPointeeType(current);
-        current = next;
-      }
+    // Types are built bottom-up from the base type, so that each derived type
+    // can be looked up in the type table once its component is known.
+    Type current = ((TypeSymbol)symbol).getType();
+    while (!derivationQueue.isEmpty()) {
+      var next = derivationQueue.remove();
+      if (next instanceof ArrayDeclarator)
+        current = types.arrayOf(current, arraySize((ArrayDeclarator)next));
+      else if (next instanceof PointerDeclarator)
+        current = types.pointerTo(current);
     }
     typeQueue.add(current);
   }
@@ -4,44 +4,132 @@ import org.opal.ast.AstNode;
 import org.opal.ast.TranslationUnit;
 import org.opal.ast.declaration.*;
 import org.opal.ast.expression.*;
-import org.opal.symbol.Scope;
+import org.opal.ast.statement.*;
+import org.opal.event.ResolutionMissEvent;
+import org.opal.symbol.Resolver;
 import org.opal.symbol.VariableSymbol;
 import org.opal.type.PrimitiveType;
 import org.opal.type.Type;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 
 // The purpose of this pass is compute types for expressions. It does not
 // perform type checking.
 
+// Routine bodies are typed after all top-level declarations have been walked.
+// Each body is typed by a pass of its own, with a resolver of its own that
+// falls back on the package-level resolver, so bodies share nothing that
+// changes while they are typed. Package and global scopes are only read, the
+// block scopes of a body were attached to it by Pass20, and types are only
+// written into the nodes of the body itself. Bodies may thus be typed in
+// parallel, as fork-join tasks on the pool the pass manager runs on. Errors
+// found in a body are collected by its task and printed once all bodies are
+// done, in the order of the routines, so the output is the same no matter
+// how the tasks were scheduled.
+
 public class Pass40 extends BaseVisitor {
 
   private final LinkedList<Type> typeStack = new LinkedList<>();
 
-  private Scope currentScope = null;
+  // Names are resolved against the scopes entered so far
+  private final Resolver resolver;
+
+  private final boolean parallel;
+
+  // Bodies waiting to be typed
+  private final ArrayList<RoutineBody> bodies = new ArrayList<>();
+
+  // Errors found in a routine body, or null if errors are printed as soon as
+  // they are found
+  private final List<String> errors;
 
   public Pass40 (AstNode input) {
+    this(input, false);
+  }
+
+  public Pass40 (AstNode input, boolean parallel) {
     super(input);
+    this.parallel = parallel;
+    resolver = new Resolver();
+    errors = null;
+  }
+
+  // Creates a pass that types one routine body inside the scopes that are
+  // open in the given resolver, i.e. the package scope and those around it
+
+  private Pass40 (RoutineBody body, Resolver outer) {
+    super(body);
+    parallel = false;
+    resolver = new Resolver(outer);
+    errors = new ArrayList<>();
   }
 
   public void process () {
-    System.out.println("PASS 40");
-    visit((TranslationUnit)root);
+    traverse();
+  }
+
+  // Names may refer to variables declared anywhere in the package, including
+  // further down, so the types of all declarations must be known before any
+  // expression is typed
+
+  public EnumSet<PassManager.Attribute> reads () {
+    return EnumSet.of(PassManager.Attribute.SCOPES, PassManager.Attribute.SYMBOLS, PassManager.Attribute.DECLARATOR_TYPES);
   }
 
-  public void visit (TranslationUnit node ) {
+  public EnumSet<PassManager.Attribute> writes () {
+    return EnumSet.of(PassManager.Attribute.EXPRESSION_TYPES);
+  }
+
+  public boolean isFusible () {
+    return true;
+  }
+
+  public void begin () {
+    System.out.println("PASS 40");
     // This is global scope or package scope? Lets say global scope for now.
-    currentScope = node.getScope();
+    var node = (TranslationUnit)root;
+    resolver.enterAll(node.getScope());
     node.getPackageDeclaration().accept(this);
-    node.getOtherDeclarations().accept(this);
   }
 
   // We never exit package scope, but global and built-in scopes are outer
-  // scopes, so resolution can search the higher scopes when recurse is
-  // enabled.
+  // scopes. They were entered first, so names from those scopes resolve too
+  // unless the package shadows them.
 
   public void visit (PackageDeclaration node) {
-    currentScope = node.getScope();
+    resolver.enter(node.getScope());
+  }
+
+  // Bodies are typed in the order of the routines whether they run in
+  // parallel or not. Joining a task that has not been forked runs it right
+  // away on this thread.
+
+  public void end () {
+    var tasks = new ArrayList<ForkJoinTask<List<String>>>(bodies.size());
+    for (var body : bodies)
+      tasks.add(ForkJoinTask.adapt(() -> new Pass40(body, resolver).typeBody()));
+    bodies.clear();
+    if (parallel)
+      ForkJoinTask.invokeAll(tasks);
+    for (var task : tasks)
+      for (var error : task.invoke())
+        System.out.println(error);
+  }
+
+  private List<String> typeBody () {
+    root.accept(this);
+    return errors;
+  }
+
+  private void error (String message) {
+    if (errors == null)
+      System.out.println(message);
+    else
+      errors.add(message);
   }
 
   public void visit (OtherDeclarations node ) {
@@ -58,6 +146,56 @@ public class Pass40 extends BaseVisitor {
     node.getExpression().accept(this);
   }
 
+  public void visit (RoutineDeclaration node) {
+    bodies.add(node.getBody());
+  }
+
+  public void visit (RoutineBody node) {
+    node.getCompoundStatement().accept(this);
+  }
+
+  // STATEMENTS
+
+  // The scope of a compound statement encloses the scope it appears in, so
+  // it is entered on the way in and exited on the way out
+
+  public void visit (CompoundStatement node) {
+    resolver.enter(node.getScope());
+    for (var statement : node.getStatements())
+      statement.accept(this);
+    resolver.exit();
+  }
+
+  public void visit (ElseClause node) {
+    node.elseBody().accept(this);
+  }
+
+  public void visit (ExpressionStatement node) {
+    node.expression().accept(this);
+  }
+
+  public void visit (ForStatement node) {
+    node.expression().accept(this);
+    node.forBody().accept(this);
+  }
+
+  public void visit (IfStatement node) {
+    node.ifCondition().accept(this);
+    node.ifBody().accept(this);
+    if (node.getChildCount() > 2)
+      node.elseClause().accept(this);
+  }
+
+  public void visit (LocalVariableDeclarationStatement node) {
+    if (node.hasInitializer())
+      node.getInitializer().accept(this);
+  }
+
+  public void visit (ReturnStatement node) {
+    if (node.hasChildren())
+      node.expression().accept(this);
+  }
+
   // Does every expression have a sub-expression?
 
   public void visit (Expression node) {
@@ -173,12 +311,12 @@ public class Pass40 extends BaseVisitor {
           }
         } else {
           // Different signedness: no implicit conversion permitted
-          System.out.println("semantic error: implicit conversion between signed and unsigned types");
+          error("semantic error: implicit conversion between signed and unsigned types");
         }
       }
     } else {
       // Incompatible types
-      System.out.println("semantic error: operation not permitted for incompatible types " + leftType + " and " + rightType);
+      error("semantic error: operation not permitted for incompatible types " + leftType + " and " + rightType);
     }
   }
 
@@ -271,9 +409,23 @@ public class Pass40 extends BaseVisitor {
   // a dependency tree and try to figure out its type.
 
   public void visit (Name node) {
-    var symbol = currentScope.resolve(node.getToken().getLexeme(), true);
+    var symbol = resolver.resolve(node.getToken().getId());
     if (symbol instanceof VariableSymbol) {
       node.setType(((VariableSymbol) symbol).getType());
+    } else if (symbol == null) {
+      recordMiss(node.getToken());
+    }
+  }
+
+  private void recordMiss (Token token) {
+    var event = new ResolutionMissEvent();
+    if (event.shouldCommit()) {
+      event.name = token.getLexeme();
+      event.line = token.getLine();
+      event.column = token.getColumn();
+      event.phase = "Pass40";
+      event.file = token.getSource().getName();
+      event.commit();
     }
   }
 
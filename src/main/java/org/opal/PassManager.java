@@ -0,0 +1,137 @@
+package org.opal;
+
+import org.opal.ast.TranslationUnit;
+import org.opal.event.PassEvent;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.StringJoiner;
+
+// The pass manager runs the semantic analysis passes over the package AST.
+// Each pass declares the attributes it reads and writes (see BaseVisitor).
+// Two passes conflict if one writes an attribute the other reads or writes,
+// and conflicting passes always run in the order in which they were added.
+// Passes that do not conflict with any pass added before them are free to run
+// as early as possible.
+
+// Passes run in traversals. A pass that does not walk the declarations, or
+// cannot share its walk, gets a traversal to itself. All fusible passes that
+// are ready at the same time conflict with none of each other, so they share
+// one traversal: the top-level declarations are walked once, and each
+// declaration is handed to each of the passes in turn.
+
+// Fusing is only sound because a fused pass never reads an attribute that
+// another pass of the same traversal writes, for any declaration. That is
+// also why Pass30 and Pass40 are never fused even though they walk the tree
+// the same way. Pass40 types the initializer of a declaration using the types
+// of the variables it names, which Pass30 computes, and those variables may be
+// declared further down, where a fused traversal would not have been yet.
+
+public class PassManager {
+
+  // Attributes that passes compute and depend on
+  public enum Attribute {
+    // Scopes attached to the AST
+    SCOPES,
+    // Symbols defined in those scopes
+    SYMBOLS,
+    // Types constructed from declarators and stored in symbols
+    DECLARATOR_TYPES,
+    // Types of expressions, including implicit conversions inserted into the
+    // tree to make them explicit
+    EXPRESSION_TYPES
+  }
+
+  private final TranslationUnit root;
+
+  private final ArrayList<BaseVisitor> passes = new ArrayList<>();
+
+  private Timings timings = new Timings();
+
+  public PassManager (TranslationUnit root) {
+    this.root = root;
+  }
+
+  // Each traversal is timed as one phase, named after the passes in it
+
+  public void setTimings (Timings timings) {
+    this.timings = timings;
+  }
+
+  public void add (BaseVisitor pass) {
+    passes.add(pass);
+  }
+
+  public void run () {
+    for (var traversal : schedule())
+      run(traversal);
+  }
+
+  private void run (List<BaseVisitor> traversal) {
+    var sample = timings.startAll();
+    var event = new PassEvent();
+    event.begin();
+    var nodes = Timings.getTotalNodeCount();
+    if (traversal.size() == 1)
+      traversal.getFirst().process();
+    else {
+      for (var pass : traversal)
+        pass.begin();
+      for (var declaration : root.getOtherDeclarations().getOtherDeclarations())
+        for (var pass : traversal)
+          pass.visitDeclaration(declaration);
+      for (var pass : traversal)
+        pass.end();
+    }
+    var names = new StringJoiner(" + ");
+    for (var pass : traversal)
+      names.add(pass.getClass().getSimpleName());
+    event.finish(names.toString(), "", 0, Timings.getTotalNodeCount() - nodes);
+    timings.stop(names.toString(), sample, 0);
+  }
+
+  // Returns the passes grouped into traversals, in the order the traversals
+  // are to run. A pass is ready once no pass added before it that it
+  // conflicts with is still waiting. Ready passes that cannot be fused run
+  // first, one at a time, and then all ready fusible passes run together.
+
+  public List<List<BaseVisitor>> schedule () {
+    var waiting = new ArrayList<>(passes);
+    var traversals = new ArrayList<List<BaseVisitor>>();
+    while (!waiting.isEmpty()) {
+      var ready = new ArrayList<BaseVisitor>();
+      for (var i = 0; i < waiting.size(); i++)
+        if (isReady(waiting, i))
+          ready.add(waiting.get(i));
+      var alone = ready.stream().filter(pass -> !pass.isFusible()).findFirst();
+      if (alone.isPresent()) {
+        traversals.add(List.of(alone.get()));
+        waiting.remove(alone.get());
+      } else {
+        traversals.add(ready);
+        waiting.removeAll(ready);
+      }
+    }
+    return traversals;
+  }
+
+  private static boolean isReady (List<BaseVisitor> waiting, int index) {
+    for (var i = 0; i < index; i++)
+      if (conflicts(waiting.get(i), waiting.get(index)))
+        return false;
+    return true;
+  }
+
+  private static boolean conflicts (BaseVisitor a, BaseVisitor b) {
+    return intersects(a.writes(), b.reads()) || intersects(a.reads(), b.writes()) || intersects(a.writes(), b.writes());
+  }
+
+  private static boolean intersects (EnumSet<Attribute> a, EnumSet<Attribute> b) {
+    for (var attribute : a)
+      if (b.contains(attribute))
+        return true;
+    return false;
+  }
+
+}
@@ -1,9 +1,11 @@
 package org.opal;
 
 import java.nio.file.Path;
-import java.nio.file.Files;
 import java.io.IOException;
 
+// The reader memory-maps a source file rather than decoding it into a string.
+// See Utf8Source for details.
+
 public class Reader {
 
   Path input = null;
@@ -12,11 +14,11 @@ public class Reader {
     this.input = input;
   }
 
-  public String process() {
+  public Utf8Source process() {
 
-    String content = null;
+    Utf8Source content = null;
     try {
-      content = Files.readString(input);
+      content = Utf8Source.map(input);
     } catch (IOException e) {
       e.printStackTrace();
     }
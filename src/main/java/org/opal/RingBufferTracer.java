@@ -0,0 +1,86 @@
+package org.opal;
+
+// A ring buffer tracer keeps the most recent parse events in a fixed-size
+// array of longs. Each event is packed into a single long, so recording an
+// event never allocates and the buffer never grows, however large the input.
+// Once the buffer is full, the oldest events are overwritten. This makes it
+// cheap enough to leave running and inspect only after something has gone
+// wrong, e.g. to see the tokens that led up to a syntax error.
+
+// Layout of a record, from most to least significant bits:
+//   event ordinal (16 bits) | token kind ordinal (16 bits) | position (32 bits)
+
+public class RingBufferTracer implements ParseTracer {
+
+  private static final int DEFAULT_CAPACITY = 4096;
+
+  private static final Event[] EVENTS = Event.values();
+  private static final Token.Kind[] KINDS = Token.Kind.values();
+
+  private final long[] records;
+
+  // Total number of events recorded, including overwritten ones
+  private long count = 0;
+
+  public RingBufferTracer () {
+    this(DEFAULT_CAPACITY);
+  }
+
+  // Capacity is rounded up to a power of two so that the write index can be
+  // computed with a mask
+
+  public RingBufferTracer (int capacity) {
+    records = new long[Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1)];
+  }
+
+  @Override
+  public void trace (Event event, Token.Kind kind, int position) {
+    records[(int)count & (records.length - 1)] =
+      (long)event.ordinal() << 48 | (long)kind.ordinal() << 32 | (position & 0xFFFFFFFFL);
+    count += 1;
+  }
+
+  public long getCount () {
+    return count;
+  }
+
+  // Returns the number of events still held in the buffer
+
+  public int size () {
+    return (int)Math.min(count, records.length);
+  }
+
+  // Events are numbered from the oldest one still held in the buffer
+
+  public Event getEvent (int index) {
+    return EVENTS[(int)(record(index) >>> 48)];
+  }
+
+  public Token.Kind getKind (int index) {
+    return KINDS[(int)(record(index) >>> 32) & 0xFFFF];
+  }
+
+  public int getPosition (int index) {
+    return (int)record(index);
+  }
+
+  private long record (int index) {
+    var first = count - size();
+    return records[(int)(first + index) & (records.length - 1)];
+  }
+
+  public String toString () {
+    var size = size();
+    var sb = new StringBuilder(size * 32);
+    for (var i = 0; i < size; i++) {
+      sb.append(getPosition(i))
+        .append(' ')
+        .append(getEvent(i))
+        .append(' ')
+        .append(getKind(i))
+        .append('\n');
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,97 @@
+package org.opal;
+
+import java.util.Arrays;
+
+// A source file pairs the text of a file with an index of the offsets at
+// which its lines start. The lexer records each line start as it scans past a
+// line feed, so building the index costs nothing beyond the scan itself.
+
+// Tokens only store their offset. Their line is found by binary search over
+// the index, and their column by counting characters from the start of the
+// line. Both are only needed for diagnostics and debugging output, so they
+// are not worth storing for every token.
+
+// Diagnostics print the line they occur on. Line text is sliced out of the
+// source and decoded only at that point, rather than splitting the whole file
+// into lines up front and keeping them around for the entire compile.
+
+public class SourceFile {
+
+  private final Utf8Source text;
+
+  // Name of the file, for reporting
+  private final String name;
+
+  // Offset at which each line starts, in order. The first line always starts
+  // at offset zero.
+  private int[] lineStarts = new int[64];
+  private int lineCount = 1;
+
+  public SourceFile (Utf8Source text) {
+    this(text, "");
+  }
+
+  public SourceFile (Utf8Source text, String name) {
+    this.text = text;
+    this.name = name;
+  }
+
+  public SourceFile (String text) {
+    this(Utf8Source.of(text));
+  }
+
+  public Utf8Source getText () {
+    return text;
+  }
+
+  public String getName () {
+    return name;
+  }
+
+  // Records that a new line starts at the given offset, which must be past the
+  // start of the previous line
+
+  void addLine (int offset) {
+    if (lineCount == lineStarts.length)
+      lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+    lineStarts[lineCount++] = offset;
+  }
+
+  // Returns the number of lines recorded so far
+
+  public int getLineCount () {
+    return lineCount;
+  }
+
+  // Returns the line containing the given offset, counting from one
+
+  public int getLine (int offset) {
+    var index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  // Returns the column of the given offset, counting from one. Columns count
+  // characters rather than bytes, so continuation bytes are skipped.
+
+  public int getColumn (int offset) {
+    var column = 1;
+    for (var i = lineStarts[getLine(offset) - 1]; i < offset; i++)
+      if ((text.charAt(i) & 0xC0) != 0x80)
+        column += 1;
+    return column;
+  }
+
+  // Returns the text of the given line, counting from one, without its line
+  // terminator
+
+  public String getLineText (int line) {
+    var start = lineStarts[line - 1];
+    var end = start;
+    while (end < text.length() && text.charAt(end) != '\n')
+      end += 1;
+    if (end > start && text.charAt(end - 1) == '\r')
+      end -= 1;
+    return text.subSequence(start, end).toString();
+  }
+
+}
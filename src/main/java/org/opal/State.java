@@ -3,6 +3,9 @@ package org.opal;
 // This is the lexer state. We will have multiple state machines in the
 // compiler, so this probably needs to be namespaced.
 
+// The states of the numeric literal scanners. Their transitions are given by
+// the table in NumberTable, which is indexed by ordinal.
+
 public enum State {
 
   // Binary integer states
@@ -15,7 +18,6 @@ public enum State {
   BIN_600,
   BIN_700,
   BIN_800,
-  BIN_ERROR,
 
   // Hexadecimal number states
   HEX_START,
@@ -35,7 +37,6 @@ public enum State {
   HEX_800,
   HEX_810,
   HEX_820,
-  HEX_ERROR,
 
   // Decimal number states
   NUM_START,
@@ -52,7 +53,6 @@ public enum State {
   NUM_800,
   NUM_810,
   NUM_820,
-  NUM_ERROR,
 
   // Octal integer states
   OCT_START,
@@ -63,6 +63,5 @@ public enum State {
   OCT_500,
   OCT_600,
   OCT_700,
-  OCT_800,
-  OCT_ERROR
+  OCT_800
 }
@@ -0,0 +1,244 @@
+package org.opal;
+
+import com.sun.management.OperatingSystemMXBean;
+import com.sun.management.ThreadMXBean;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Timings record where compile time goes when the compiler is run with
+// --time-passes. For each phase, they record wall time, CPU time, bytes
+// allocated, tokens processed, and AST nodes and symbols created. The report
+// is a table sorted by wall time, or JSON for build dashboards to collect.
+
+// The reader, lexer, and parser run once per file, and files are processed
+// in parallel. These phases are therefore measured on the thread that runs
+// them and summed over all files, so their wall times can add up to more
+// than the elapsed time. Work they fork onto other threads, such as the
+// chunks of a large file parsed in parallel, is not included. Passes run one
+// at a time, so they are measured over the whole process, including routine
+// bodies typed in parallel by Pass40.
+
+public final class Timings {
+
+  public enum Format { TABLE, JSON }
+
+  private static final ThreadMXBean THREADS = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+  private static final OperatingSystemMXBean SYSTEM = (OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean();
+
+  // Nodes and symbols are counted as they are created. Each thread keeps its
+  // own counts, so counting needs no synchronization, and registers them so
+  // that they can also be summed over all threads. Nothing is counted unless
+  // counting was started, which the compiler does for timings and for flight
+  // recordings, and which applies to the whole process until it is stopped.
+
+  private static final int NODES = 0;
+  private static final int SYMBOLS = 1;
+
+  private static final Queue<long[]> ALL_COUNTS = new ConcurrentLinkedQueue<>();
+
+  private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> {
+    var counts = new long[2];
+    ALL_COUNTS.add(counts);
+    return counts;
+  });
+
+  private static volatile boolean counting = false;
+
+  // Format of the report, or null if nothing is recorded
+  private final Format format;
+
+  // Phases in the order they were first recorded
+  private final LinkedHashMap<String, Phase> phases = new LinkedHashMap<>();
+
+  private final Sample start;
+
+  // Creates timings that record nothing
+
+  public Timings () {
+    format = null;
+    start = null;
+  }
+
+  // Creates timings that report in the given format. Node and symbol counts
+  // are only recorded while counting is on.
+
+  public Timings (Format format) {
+    this.format = format;
+    start = startAll();
+  }
+
+  public static void startCounting () {
+    counting = true;
+  }
+
+  public static void stopCounting () {
+    counting = false;
+  }
+
+  public static void countNode () {
+    if (counting)
+      COUNTS.get()[NODES] += 1;
+  }
+
+  public static void countSymbol () {
+    if (counting)
+      COUNTS.get()[SYMBOLS] += 1;
+  }
+
+  // Returns the number of nodes created so far on the current thread
+
+  public static long getNodeCount () {
+    return COUNTS.get()[NODES];
+  }
+
+  // Returns the number of nodes created so far on all threads
+
+  public static long getTotalNodeCount () {
+    var nodes = 0L;
+    for (var counts : ALL_COUNTS)
+      nodes += counts[NODES];
+    return nodes;
+  }
+
+  public boolean isEnabled () {
+    return format != null;
+  }
+
+  // Starts measuring a phase that runs on the current thread only
+
+  public Sample start () {
+    if (!isEnabled())
+      return null;
+    return new Sample(false, System.nanoTime(), THREADS.getCurrentThreadCpuTime(),
+      THREADS.getCurrentThreadAllocatedBytes(), getNodeCount(), COUNTS.get()[SYMBOLS]);
+  }
+
+  // Starts measuring a phase that may use any number of threads, while no
+  // other phase runs
+
+  public Sample startAll () {
+    if (!isEnabled())
+      return null;
+    var symbols = 0L;
+    for (var counts : ALL_COUNTS)
+      symbols += counts[SYMBOLS];
+    return new Sample(true, System.nanoTime(), SYSTEM.getProcessCpuTime(),
+      THREADS.getTotalThreadAllocatedBytes(), getTotalNodeCount(), symbols);
+  }
+
+  // Records a run of the named phase, started with the given sample. Runs of
+  // the same phase are added up.
+
+  public void stop (String name, Sample sample, long tokens) {
+    if (!isEnabled())
+      return;
+    var end = sample.all ? startAll() : start();
+    synchronized (phases) {
+      var phase = phases.computeIfAbsent(name, Phase::new);
+      phase.add(sample, end, tokens);
+    }
+  }
+
+  public void report (PrintStream out) {
+    if (!isEnabled())
+      return;
+    var total = new Phase("total");
+    total.add(start, startAll(), 0);
+    var sorted = new ArrayList<>(phases.values());
+    sorted.sort(Comparator.comparingLong((Phase phase) -> phase.wall).reversed());
+    if (format == Format.JSON)
+      reportJson(out, sorted, total);
+    else
+      reportTable(out, sorted, total);
+  }
+
+  private void reportTable (PrintStream out, ArrayList<Phase> sorted, Phase total) {
+    var heading = "%-24s %6s %12s %12s %12s %12s %10s %10s%n";
+    var row = "%-24s %6d %12.1f %12.1f %12.1f %12s %10d %10d%n";
+    out.printf(heading, "phase", "runs", "wall (ms)", "cpu (ms)", "alloc (MB)", "tokens/s", "nodes", "symbols");
+    for (var phase : sorted)
+      out.printf(row, phase.name, phase.runs, phase.wall / 1e6, phase.cpu / 1e6, phase.allocated / 1e6,
+        phase.tokens == 0 ? "-" : String.format("%.0f", phase.tokensPerSecond()), phase.nodes, phase.symbols);
+    out.printf(row, total.name, total.runs, total.wall / 1e6, total.cpu / 1e6, total.allocated / 1e6,
+      "-", total.nodes, total.symbols);
+  }
+
+  private void reportJson (PrintStream out, ArrayList<Phase> sorted, Phase total) {
+    out.print("{\"phases\":[");
+    for (var i = 0; i < sorted.size(); i++) {
+      if (i > 0)
+        out.print(",");
+      out.print(sorted.get(i).toJson());
+    }
+    out.println("],\"total\":" + total.toJson() + "}");
+  }
+
+  // The state of the clocks and counters when a phase started
+
+  public static class Sample {
+
+    final boolean all;
+    final long wall;
+    final long cpu;
+    final long allocated;
+    final long nodes;
+    final long symbols;
+
+    Sample (boolean all, long wall, long cpu, long allocated, long nodes, long symbols) {
+      this.all = all;
+      this.wall = wall;
+      this.cpu = cpu;
+      this.allocated = allocated;
+      this.nodes = nodes;
+      this.symbols = symbols;
+    }
+
+  }
+
+  private static class Phase {
+
+    final String name;
+    int runs = 0;
+    long wall = 0;
+    long cpu = 0;
+    long allocated = 0;
+    long tokens = 0;
+    long nodes = 0;
+    long symbols = 0;
+
+    Phase (String name) {
+      this.name = name;
+    }
+
+    void add (Sample start, Sample end, long tokens) {
+      runs += 1;
+      wall += end.wall - start.wall;
+      cpu += end.cpu - start.cpu;
+      allocated += end.allocated - start.allocated;
+      this.tokens += tokens;
+      nodes += end.nodes - start.nodes;
+      symbols += end.symbols - start.symbols;
+    }
+
+    double tokensPerSecond () {
+      return wall == 0 ? 0 : tokens * 1e9 / wall;
+    }
+
+    String toJson () {
+      return String.format(Locale.ROOT,
+        "{\"name\":\"%s\",\"runs\":%d,\"wallNanos\":%d,\"cpuNanos\":%d,\"allocatedBytes\":%d," +
+        "\"tokens\":%d,\"tokensPerSecond\":%.0f,\"nodes\":%d,\"symbols\":%d}",
+        name, runs, wall, cpu, allocated, tokens, tokensPerSecond(), nodes, symbols);
+    }
+
+  }
+
+}
@@ -2,58 +2,85 @@ package org.opal;
 
 public class Token {
 
-  // Kind of token (e.g. IF, PLUS, SEMICOLON)
-  private final Token.Kind kind;
+  // A token is a view of one slot in a token buffer, which holds its kind,
+  // position, and error flag. See TokenBuffer for details.
+  private final TokenBuffer buffer;
+  private final int slot;
 
-  // Text contents of token
-  private final String lexeme;
+  // Text contents of token, sliced from the source on first request
+  private String lexeme = null;
 
-  // Position in input stream where first character occurs, counting from zero
-  private final int index;
-
-  // Line number of token, counting from one
-  private final int line;
-
-  // Column number where first character occurs, counting from one
-  private final int column;
+  public Token (TokenBuffer buffer, int slot) {
+    this.buffer = buffer;
+    this.slot = slot;
+  }
 
-  // Tokens may be flagged as erroneous by parser's match method
-  private boolean error = false;
+  // Creates a stand-alone token that does not come from a lexed source file,
+  // e.g. for placeholder nodes fabricated by the parser.
 
-  public Token (Token.Kind kind, String lexeme, int index, int line, int column) {
-    this.kind = kind;
+  public Token (Token.Kind kind, String lexeme) {
+    buffer = new TokenBuffer(new SourceFile(lexeme), 1);
+    slot = buffer.add(kind, 0, lexeme.length());
     this.lexeme = lexeme;
-    this.index = index;
-    this.line = line;
-    this.column = column;
   }
 
   public Token.Kind getKind () {
-    return kind;
+    return buffer.getKind(slot);
   }
 
   public String getLexeme () {
+    if (lexeme == null)
+      lexeme = buffer.getLexeme(slot);
     return lexeme;
   }
 
+  // Position in input stream where first character occurs, counting from zero
+
   public int getIndex () {
-    return index;
+    return buffer.getStart(slot);
+  }
+
+  // Identifier id of a word token, or TokenBuffer.NO_ID for other tokens
+
+  public int getId () {
+    return buffer.getId(slot);
   }
 
+  // Value of a numeric literal token. For floating point literals, these are
+  // the raw bits of the value.
+
+  public long getValue () {
+    return buffer.getValue(slot);
+  }
+
+  public double getDoubleValue () {
+    return Double.longBitsToDouble(buffer.getValue(slot));
+  }
+
+  // Line number of token, counting from one
+
   public int getLine () {
-    return line;
+    return buffer.getLine(slot);
   }
 
+  // Column number where first character occurs, counting from one
+
   public int getColumn () {
-    return column;
+    return buffer.getColumn(slot);
+  }
+
+  public SourceFile getSource () {
+    return buffer.getSource();
   }
 
+  // Tokens may be flagged as erroneous by parser's match method
+
   public boolean getError () {
-    return error;
+    return buffer.getError(slot);
   }
 
   public void setError () {
-    error = true;
+    buffer.setError(slot);
   }
 
   // What is the 32 for?
@@ -61,15 +88,15 @@ public class Token {
   public String toString () {
     return new StringBuilder(32)
         .append("Token(")
-        .append(kind.toString())
+        .append(getKind().toString())
         .append(",'")
-        .append(lexeme)
+        .append(getLexeme())
         .append("',")
-        .append(index)
+        .append(getIndex())
         .append(",")
-        .append(line)
+        .append(getLine())
         .append(",")
-        .append(column)
+        .append(getColumn())
         .append(")")
         .toString();
   }
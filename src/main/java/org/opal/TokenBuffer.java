@@ -0,0 +1,210 @@
+package org.opal;
+
+import org.opal.symbol.IdentifierTable;
+
+import java.util.Arrays;
+
+// A token buffer stores the tokens of one source file in a struct-of-arrays
+// layout: one parallel int array per token attribute, rather than one heap
+// object per token. Lexemes are not stored at all. They are sliced out of the
+// source text on request, which for most tokens never happens.
+
+// Tokens are addressed by slot, counting from zero in the order the lexer
+// produced them. A Token object is only a lightweight view of a slot, so the
+// parser can walk the whole buffer without allocating anything, and only
+// materializes views for tokens that end up in the AST or in diagnostics.
+
+// Words (identifiers and keywords) also carry the id the lexer obtained by
+// interning them in the identifier table, which later passes use in place of
+// the name. The lexeme of a word is the interned name itself, so it does not
+// need to be sliced out of the source either.
+
+// Numeric literals carry their value, which the lexer computes as it scans
+// them. Floating point values are stored as their raw bits.
+
+// Lines and columns are not stored either. Both are derived from the start
+// offset through the line index of the source file when they are asked for,
+// which is rare enough that keeping them for every token is not worthwhile.
+
+public class TokenBuffer {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static final Token.Kind[] KINDS = Token.Kind.values();
+
+  // Id of tokens that are not words
+  public static final int NO_ID = -1;
+
+  private final SourceFile source;
+
+  // Table the ids of words refer to, or null if words are not interned
+  private final IdentifierTable identifiers;
+
+  // Token attributes, indexed by slot
+  private int[] kinds;
+  private int[] starts;
+  private int[] lengths;
+  private int[] ids;
+  private long[] values;
+
+  // Tokens may be flagged as erroneous by parser's match method. A boolean
+  // array (rather than a bit set) keeps writes to different slots independent.
+  private boolean[] errors;
+
+  private int size = 0;
+
+  public TokenBuffer (SourceFile source) {
+    this(source, INITIAL_CAPACITY);
+  }
+
+  public TokenBuffer (SourceFile source, IdentifierTable identifiers) {
+    this(source, INITIAL_CAPACITY, identifiers);
+  }
+
+  public TokenBuffer (SourceFile source, int capacity) {
+    this(source, capacity, null);
+  }
+
+  public TokenBuffer (SourceFile source, int capacity, IdentifierTable identifiers) {
+    this.source = source;
+    this.identifiers = identifiers;
+    capacity = Math.max(capacity, 1);
+    kinds = new int[capacity];
+    starts = new int[capacity];
+    lengths = new int[capacity];
+    ids = new int[capacity];
+    values = new long[capacity];
+    errors = new boolean[capacity];
+  }
+
+  // Appends a token and returns its slot. The start is the position in the
+  // source where the first character occurs, counting from zero.
+
+  public int add (Token.Kind kind, int start, int length) {
+    return add(kind, start, length, NO_ID);
+  }
+
+  // Words are added along with their identifier id
+
+  public int add (Token.Kind kind, int start, int length, int id) {
+    if (size == kinds.length)
+      grow();
+    kinds[size] = kind.ordinal();
+    starts[size] = start;
+    lengths[size] = length;
+    ids[size] = id;
+    values[size] = 0;
+    return size++;
+  }
+
+  public int addLiteral (Token.Kind kind, int start, int length, long value) {
+    var slot = add(kind, start, length, NO_ID);
+    values[slot] = value;
+    return slot;
+  }
+
+  // Appends a copy of a token held in another buffer over the same source
+  // and returns its new slot.
+
+  public int copy (TokenBuffer from, int slot) {
+    var copy = add(from.getKind(slot), from.starts[slot], from.lengths[slot], from.ids[slot]);
+    values[copy] = from.values[slot];
+    errors[copy] = from.errors[slot];
+    return copy;
+  }
+
+  // Drops the given number of tokens from the front of the buffer, shifting
+  // the remaining tokens down to slot zero. Views created for dropped slots
+  // are no longer valid afterwards.
+
+  public void discard (int count) {
+    var remaining = size - count;
+    System.arraycopy(kinds, count, kinds, 0, remaining);
+    System.arraycopy(starts, count, starts, 0, remaining);
+    System.arraycopy(lengths, count, lengths, 0, remaining);
+    System.arraycopy(ids, count, ids, 0, remaining);
+    System.arraycopy(values, count, values, 0, remaining);
+    System.arraycopy(errors, count, errors, 0, remaining);
+    Arrays.fill(errors, remaining, size, false);
+    size = remaining;
+  }
+
+  private void grow () {
+    var capacity = kinds.length * 2;
+    kinds = Arrays.copyOf(kinds, capacity);
+    starts = Arrays.copyOf(starts, capacity);
+    lengths = Arrays.copyOf(lengths, capacity);
+    ids = Arrays.copyOf(ids, capacity);
+    values = Arrays.copyOf(values, capacity);
+    errors = Arrays.copyOf(errors, capacity);
+  }
+
+  public int size () {
+    return size;
+  }
+
+  public int capacity () {
+    return kinds.length;
+  }
+
+  public SourceFile getSource () {
+    return source;
+  }
+
+  public IdentifierTable getIdentifiers () {
+    return identifiers;
+  }
+
+  public Token get (int slot) {
+    return new Token(this, slot);
+  }
+
+  public Token.Kind getKind (int slot) {
+    return KINDS[kinds[slot]];
+  }
+
+  public int getStart (int slot) {
+    return starts[slot];
+  }
+
+  public int getLength (int slot) {
+    return lengths[slot];
+  }
+
+  public int getLine (int slot) {
+    return source.getLine(starts[slot]);
+  }
+
+  public int getColumn (int slot) {
+    return source.getColumn(starts[slot]);
+  }
+
+  public int getId (int slot) {
+    return ids[slot];
+  }
+
+  public long getValue (int slot) {
+    return values[slot];
+  }
+
+  public boolean getError (int slot) {
+    return errors[slot];
+  }
+
+  public void setError (int slot) {
+    errors[slot] = true;
+  }
+
+  // The EOF token has no text in the source, so it is given a printable
+  // placeholder instead.
+
+  public String getLexeme (int slot) {
+    if (kinds[slot] == Token.Kind.EOF.ordinal())
+      return "<EOF>";
+    if (ids[slot] != NO_ID && identifiers != null)
+      return identifiers.getName(ids[slot]);
+    var start = starts[slot];
+    return source.getText().subSequence(start, start + lengths[slot]).toString();
+  }
+
+}
@@ -0,0 +1,57 @@
+package org.opal;
+
+import java.util.StringJoiner;
+
+// A token set is an immutable set of token kinds, stored as a bitmask with
+// one bit per kind. There are more kinds than bits in a long, so the mask is
+// spread over a few longs, and testing membership takes one array load and
+// one bitwise AND.
+
+// The parser tests sets on every check-in and every token skipped during
+// error recovery, and used to build fresh EnumSets for unions each time it
+// recovered. Sets and their unions are now built once, when FirstSet,
+// FollowSet, and the parser are initialized, and never allocated afterwards.
+
+public final class TokenSet {
+
+  private static final Token.Kind[] KINDS = Token.Kind.values();
+
+  private static final int WORDS = (KINDS.length + 63) >>> 6;
+
+  public static final TokenSet EMPTY = new TokenSet(new long[WORDS]);
+
+  private final long[] words;
+
+  private TokenSet (long[] words) {
+    this.words = words;
+  }
+
+  public static TokenSet of (Token.Kind... kinds) {
+    var words = new long[WORDS];
+    for (var kind : kinds)
+      words[kind.ordinal() >>> 6] |= 1L << kind.ordinal();
+    return new TokenSet(words);
+  }
+
+  public static TokenSet union (TokenSet... sets) {
+    var words = new long[WORDS];
+    for (var set : sets)
+      for (var i = 0; i < WORDS; i++)
+        words[i] |= set.words[i];
+    return new TokenSet(words);
+  }
+
+  public boolean contains (Token.Kind kind) {
+    var ordinal = kind.ordinal();
+    return (words[ordinal >>> 6] & (1L << ordinal)) != 0;
+  }
+
+  public String toString () {
+    var joiner = new StringJoiner(", ", "[", "]");
+    for (var kind : KINDS)
+      if (contains(kind))
+        joiner.add(kind.toString());
+    return joiner.toString();
+  }
+
+}
@@ -0,0 +1,251 @@
+package org.opal;
+
+// A token stream tracks the parser's current position within the tokens
+// produced by the lexer. Advancing, peeking ahead by k tokens, and rewinding
+// to a previously marked position are all constant-time operations.
+
+// The lexer used to hand the parser a linked list, which the parser indexed
+// into on every advance. Since a linked list has to be walked to reach a given
+// index, parsing was quadratic in the number of tokens.
+
+// Token kinds can be inspected without allocating anything. A Token view is
+// only created when the parser asks for the current token itself, and it is
+// cached until the stream advances.
+
+// A stream is either complete or streaming. A complete stream wraps a buffer
+// that already holds every token of the file. A streaming stream pulls tokens
+// from the lexer on demand into a small window, so the parser can start while
+// the rest of the file has not been scanned yet. When the window fills up,
+// tokens behind the current position are discarded, unless a mark is still
+// active that might rewind to them. Token memory is thus bounded by the
+// lookahead actually used rather than by the size of the file.
+
+// Token views handed out by a streaming stream must outlive the window, since
+// the parser stores them in the AST. Each such token is copied into a separate
+// retained buffer, which only ever holds tokens the parser actually asked for.
+// The parser only asks for tokens it stores in the AST or in a diagnostic.
+// Punctuation and keywords it merely skips are never copied, so the retained
+// buffer grows with the AST rather than with the file.
+
+// Positions are always absolute, counting from the first token of the file,
+// whether or not the tokens before the window have been discarded.
+
+// The last token in a complete stream is always EOF. The stream never
+// advances past it, so peeking beyond the end simply yields EOF again.
+
+public class TokenStream {
+
+  private static final int DEFAULT_WINDOW = 256;
+
+  private final TokenBuffer buffer;
+
+  // Lexer to pull tokens from, or null if the buffer is already complete
+  private final Lexer lexer;
+
+  // Buffer holding copies of the tokens materialized by a streaming stream
+  private final TokenBuffer retained;
+
+  // Absolute position of the token in slot zero of the buffer
+  private int base = 0;
+
+  // Whether the lexer has produced the EOF token
+  private boolean exhausted;
+
+  // Index of the current token, counting from zero
+  private int position = 0;
+
+  private Token current = null;
+
+  // Most recently retained token and the absolute position it came from
+  private Token lastRetained = null;
+  private int lastRetainedPosition = -1;
+
+  // Number of active marks, and the position of the oldest one
+  private int marks = 0;
+  private int pinned = 0;
+
+  public TokenStream (TokenBuffer buffer) {
+    this.buffer = buffer;
+    lexer = null;
+    retained = null;
+    exhausted = true;
+  }
+
+  // Creates a complete stream positioned at the given token rather than the
+  // first, e.g. to parse a part of the file that was skipped earlier
+
+  public TokenStream (TokenBuffer buffer, int position) {
+    this(buffer);
+    this.position = position;
+  }
+
+  public TokenStream (Lexer lexer) {
+    this(lexer, DEFAULT_WINDOW);
+  }
+
+  public TokenStream (Lexer lexer, int window) {
+    this.lexer = lexer;
+    buffer = lexer.start(window);
+    retained = new TokenBuffer(buffer.getSource(), DEFAULT_WINDOW, buffer.getIdentifiers());
+    exhausted = false;
+    fill(0);
+  }
+
+  public TokenBuffer getBuffer () {
+    return buffer;
+  }
+
+  public boolean isStreaming () {
+    return lexer != null;
+  }
+
+  // Returns the number of tokens read so far. For a complete stream, this is
+  // the total number of tokens.
+
+  public int size () {
+    return base + buffer.size();
+  }
+
+  // Returns the buffer of retained tokens, or null for a complete stream
+
+  TokenBuffer getRetained () {
+    return retained;
+  }
+
+  // Returns the token at the given absolute position. For a streaming stream,
+  // the position must lie within the current window.
+
+  public Token get (int index) {
+    return buffer.get(index - base);
+  }
+
+  // Returns the kind of the current token
+
+  public Token.Kind kind () {
+    return buffer.getKind(position - base);
+  }
+
+  // Returns the kind of the token k positions ahead of the current token,
+  // where peekKind(0) is the kind of the current token.
+
+  public Token.Kind peekKind (int k) {
+    return buffer.getKind(slot(position + k));
+  }
+
+  // Returns the current token
+
+  public Token current () {
+    if (current == null)
+      current = materialize(position);
+    return current;
+  }
+
+  public Token peek (int k) {
+    return k == 0 ? current() : materialize(position + k);
+  }
+
+  private Token materialize (int index) {
+    var slot = slot(index);
+    if (lexer == null)
+      return buffer.get(slot);
+    index = base + slot;
+    if (index != lastRetainedPosition) {
+      lastRetained = retained.get(retained.copy(buffer, slot));
+      lastRetainedPosition = index;
+    }
+    return lastRetained;
+  }
+
+  // Translates an absolute position into a buffer slot, reading ahead as
+  // needed. Positions beyond the end of the file map onto the EOF token.
+
+  private int slot (int index) {
+    fill(index);
+    var slot = index - base;
+    return slot < buffer.size() ? slot : buffer.size() - 1;
+  }
+
+  // Pulls tokens from the lexer until the given absolute position is inside
+  // the window or the lexer is exhausted
+
+  private void fill (int index) {
+    while (!exhausted && index >= base + buffer.size()) {
+      if (buffer.size() == buffer.capacity())
+        compact();
+      exhausted = lexer.next() == Token.Kind.EOF;
+    }
+  }
+
+  // Discards tokens that precede both the current position and the oldest
+  // active mark. If none can be discarded, the buffer simply grows.
+
+  private void compact () {
+    var keep = marks > 0 ? Math.min(pinned, position) : position;
+    var count = keep - base;
+    if (count > 0) {
+      buffer.discard(count);
+      base = keep;
+    }
+  }
+
+  public void consume () {
+    fill(position + 1);
+    if (position < base + buffer.size() - 1) {
+      position += 1;
+      current = null;
+    }
+  }
+
+  public int position () {
+    return position;
+  }
+
+  // Moves a complete stream directly to the given position, e.g. past tokens
+  // that another parser has already parsed
+
+  public void seek (int position) {
+    this.position = position;
+    current = null;
+  }
+
+  // A mark is simply a position that can be handed back to reset() in order
+  // to rewind the stream, e.g. when trying one alternative before another.
+  // Every mark must eventually be either reset to or released, in reverse
+  // order of creation, so that a streaming stream can discard the tokens it
+  // was holding on to.
+
+  public int mark () {
+    if (marks++ == 0)
+      pinned = position;
+    return position;
+  }
+
+  public void reset (int mark) {
+    release(mark);
+    if (mark != position) {
+      position = mark;
+      current = null;
+    }
+  }
+
+  public void release (int mark) {
+    if (marks > 0)
+      marks -= 1;
+  }
+
+  // Prints the tokens currently held in the buffer, which for a streaming
+  // stream is only the window.
+
+  public String toString () {
+    var size = buffer.size();
+    var sb = new StringBuilder(size * 32);
+    sb.append('[');
+    for (var i = 0; i < size; i++) {
+      if (i > 0)
+        sb.append(", ");
+      sb.append(buffer.get(i));
+    }
+    return sb.append(']').toString();
+  }
+
+}
@@ -1,37 +1,94 @@
 package org.opal;
 
+import org.opal.ast.TranslationUnit;
+import org.opal.ast.declaration.ImportDeclarations;
+import org.opal.ast.declaration.OtherDeclarations;
+import org.opal.ast.declaration.UseDeclarations;
+import org.opal.error.Diagnostics;
+import org.opal.error.SemanticError;
+import org.opal.event.LexEvent;
+import org.opal.event.ParseEvent;
+import org.opal.event.ReadEvent;
+import org.opal.symbol.IdentifierTable;
+import org.opal.type.TypeTable;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
-import java.util.Arrays;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// The translator compiles one package. Every file in the package directory is
+// a translation unit. The front end (reading, lexing, and parsing) is
+// independent for each file, so files are processed in parallel on a pool of
+// worker threads. The resulting ASTs are then merged into a single package
+// AST, on which semantic analysis runs as before.
+
+// Each file has its own diagnostics. They are printed only after every file
+// has been parsed, one file after another in order of file name, so the
+// output is the same regardless of how the work was scheduled.
 
 public class Translator {
 
+  // Names are interned in one table for the whole package, so that the same
+  // name has the same id in every file
+  private final IdentifierTable identifiers = new IdentifierTable();
+
+  // Size in bytes from which a file's declarations are parsed in parallel
+  private static final int PARALLEL_PARSE_SIZE = 1 << 20;
+
+  private final Timings timings;
+
   public Translator (String packageDirectory) {
+    this(packageDirectory, Runtime.getRuntime().availableProcessors());
+  }
+
+  public Translator (String packageDirectory, int jobs) {
+    this(packageDirectory, jobs, new Timings());
+  }
+
+  public Translator (String packageDirectory, int jobs, Timings timings) {
+    this.timings = timings;
     var packagePath = getPackagePath(packageDirectory);
     if (packagePath == null) {
       System.out.println("error: specified package does not exist");
       System.exit(1);
     }
     var filePaths = getFilePaths(packagePath);
-    // To do: For each file, load and process
-    for (var filePath : filePaths) {
-      loadFile(filePath);
+    var units = parseFiles(filePaths, Math.max(jobs, 1));
+    for (var unit : units)
+      printDiagnostics(unit.filePath, unit.diagnostics);
+    var diagnostics = new Diagnostics();
+    var root = merge(units, diagnostics);
+    printDiagnostics(packagePath, diagnostics);
+    // Without a package declaration there is no package to analyze, either
+    // because the directory has no source files or because none of them
+    // declares a package
+    if (root.getPackageDeclaration() == null) {
+      if (filePaths.isEmpty())
+        System.out.println("error: specified package has no source files");
+      else
+        System.out.println("error: specified package has no package declaration");
+      System.exit(1);
     }
+    analyze(root, Math.max(jobs, 1));
   }
 
-  private Set<Path> getFilePaths (Path packagePath) {
-    // Given a package path, return a list of all files in the package
+  private List<Path> getFilePaths (Path packagePath) {
+    // Given a package path, return a list of all files in the package, sorted
+    // so that the order in which files are reported is reproducible
     final var OPAL_EXTENSION = ".opc";
     try (var filePaths = Files.list(packagePath)) {
       return filePaths
         .filter(Files::isRegularFile)
         .filter(filePath -> filePath.getFileName().toString().endsWith(OPAL_EXTENSION))
-        .collect(Collectors.toSet());
+        .sorted()
+        .toList();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -46,45 +103,159 @@ public class Translator {
       return packagePath;
   }
 
-  private void loadFile (Path filePath) {
+  // Results for one file are returned in the same order as the file paths,
+  // no matter which file finishes first.
+
+  private List<ParsedFile> parseFiles (List<Path> filePaths, int jobs) {
+    var tasks = new ArrayList<Callable<ParsedFile>>(filePaths.size());
+    for (var filePath : filePaths)
+      tasks.add(() -> parseFile(filePath));
+    var units = new ArrayList<ParsedFile>(filePaths.size());
+    var pool = new ForkJoinPool(jobs);
+    try {
+      for (var future : pool.invokeAll(tasks))
+        units.add(future.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    return units;
+  }
+
+  // Runs on a worker thread. Everything created here is confined to this file
+  // until the task completes.
+
+  private ParsedFile parseFile (Path filePath) {
+    var fileName = filePath.getFileName().toString();
+    var sample = timings.start();
+    var readEvent = new ReadEvent();
+    readEvent.begin();
     var reader = new Reader(filePath);
-    var source = reader.process();
     // Lines are used for error analysis. We don't necessarily want the lexer
     // to operate on lines of text since program elements may span multiple
-    // lines or multiple elements may occur on a single line.
+    // lines or multiple elements may occur on a single line. Instead, the
+    // lexer records where lines start, and a line is only sliced out of the
+    // source when an error prints it.
+    var source = new SourceFile(reader.process(), fileName);
+    readEvent.finish("Reader", fileName, 0, 0);
+    timings.stop("Reader", sample, 0);
 
-    // Note: A line with no content is not counted by lines(). This means that
-    // the EOF token may appear on a line that doesn't exist in sourceLines.
-    // Thus, if we ever try to print an error message with EOF, then it might
-    // cause an out of bound exception. The solution is to use the split()
-    // method instead of lines().
-    var sourceLines = Arrays.stream(source.replace("\r\n", "\n").split("\n", -1)).toList();
+    var diagnostics = new Diagnostics();
 
-    var lexer = new Lexer(source, sourceLines);
-    var tokens = lexer.process();
-    System.out.println(tokens);
+    // The parser pulls tokens from the lexer as it goes, so the file is never
+    // held in memory as a complete list of tokens. Large files are the
+    // exception. They are lexed completely first, so that the parser can
+    // split their declarations into chunks and parse those in parallel on
+    // this same pool. Lexical errors are then all reported before syntax
+    // errors, rather than interleaved with them. When timings or lex events
+    // are recorded, every file is lexed completely first, so that the lexer
+    // and the parser can be measured separately.
+    sample = timings.start();
+    var lexEvent = new LexEvent();
+    lexEvent.begin();
+    var lexer = new Lexer(source, diagnostics, identifiers);
+    var large = source.getText().length() >= PARALLEL_PARSE_SIZE;
+    var whole = large || timings.isEnabled() || lexEvent.isEnabled();
+    var tokens = whole ? lexer.process() : lexer.stream();
+    lexEvent.finish("Lexer", fileName, tokens.size(), 0);
+    timings.stop("Lexer", sample, tokens.size());
 
-    var parser = new Parser(tokens, sourceLines);
-    var root = parser.process();
+    sample = timings.start();
+    var parseEvent = new ParseEvent();
+    parseEvent.begin();
+    var nodes = Timings.getNodeCount();
+    var parser = new Parser(tokens, source, diagnostics);
+    parser.setParallelDeclarations(large);
+    var root = (TranslationUnit)parser.process();
+    parseEvent.finish("Parser", fileName, tokens.size(), Timings.getNodeCount() - nodes);
+    timings.stop("Parser", sample, tokens.size());
 
-    System.out.println("*** DONE PARSING ***");
+    return new ParsedFile(filePath, source, root, diagnostics);
+  }
 
-    var pass1 = new Pass1(root);
-    pass1.process();
+  private void printDiagnostics (Path filePath, Diagnostics diagnostics) {
+    if (diagnostics.isEmpty())
+      return;
+    System.out.println(filePath.getFileName() + ":");
+    for (var error : diagnostics.getErrors())
+      System.out.println(error);
+  }
 
-    var pass10 = new Pass10(root);
-    pass10.process();
+  // Merges the translation units of a package into a single translation unit
+  // holding all of their import, use, and other declarations, in file order.
+  // Every file must declare the same package. A file whose package name
+  // differs from the first file's is reported, but its declarations are still
+  // merged so that analysis can continue.
 
-    var pass20 = new Pass20(root);
-    pass20.process();
+  private TranslationUnit merge (List<ParsedFile> units, Diagnostics diagnostics) {
+    var root = new TranslationUnit();
+    var importDeclarations = new ImportDeclarations();
+    var useDeclarations = new UseDeclarations();
+    var otherDeclarations = new OtherDeclarations();
+    root.setImportDeclarations(importDeclarations);
+    root.setUseDeclarations(useDeclarations);
+    root.setOtherDeclarations(otherDeclarations);
+    String packageName = null;
+    for (var unit : units) {
+      var packageDeclaration = unit.root.getPackageDeclaration();
+      if (packageDeclaration != null && packageDeclaration.getPackageName() != null) {
+        var token = packageDeclaration.getPackageName().getToken();
+        if (packageName == null) {
+          packageName = token.getLexeme();
+          root.setPackageDeclaration(packageDeclaration);
+        } else if (!packageName.equals(token.getLexeme())) {
+          var message = "file " + unit.filePath.getFileName() + " declares package '" +
+            token.getLexeme() + "', but package is '" + packageName + "'";
+          diagnostics.add(new SemanticError(unit.source, message, token));
+        }
+      }
+      if (unit.root.getImportDeclarations() != null)
+        for (var importDeclaration : unit.root.getImportDeclarations().getImportDeclarations())
+          importDeclarations.addImportDeclaration(importDeclaration);
+      if (unit.root.getUseDeclarations() != null)
+        for (var useDeclaration : unit.root.getUseDeclarations().getUseDeclarations())
+          useDeclarations.addUseDeclaration(useDeclaration);
+      if (unit.root.getOtherDeclarations() != null)
+        for (var otherDeclaration : unit.root.getOtherDeclarations().getOtherDeclarations())
+          otherDeclarations.addOtherDeclaration(otherDeclaration);
+    }
+    return root;
+  }
+
+  private void analyze (TranslationUnit root, int jobs) {
 
-    var pass30 = new Pass30(root);
-    pass30.process();
+    System.out.println("*** DONE PARSING ***");
 
-    var pass40 = new Pass40(root);
-    pass40.process();
+    // Passes are run by the pass manager, which orders them by the attributes
+    // they read and write and runs independent passes in one traversal. The
+    // first AST dump needs nothing from the other passes, so it shares its
+    // traversal with Pass20. The second one prints expression types, so it
+    // waits for Pass40.
+    var types = new TypeTable();
+    var passes = new PassManager(root);
+    passes.add(new Pass10(root, identifiers));
+    passes.add(new Pass20(root));
+    passes.add(new Pass1(root));
+    passes.add(new Pass30(root, types));
+    passes.add(new Pass40(root, jobs > 1));
+    passes.add(new Pass1(root));
+    passes.setTimings(timings);
 
-    pass1.process();
+    // Passes run on a pool of their own, so that routine bodies typed in
+    // parallel by Pass40 use no more threads than were asked for
+    var pool = new ForkJoinPool(jobs);
+    try {
+      pool.submit(passes::run).join();
+    } finally {
+      pool.shutdown();
+    }
+
+    // The report goes to standard error, apart from the AST dumps
+    timings.report(System.err);
 
 
 //    var pass2 = new Pass30(root);
@@ -111,4 +282,22 @@ public class Translator {
   */
   }
 
+  // Output of the front end for one file
+
+  private static class ParsedFile {
+
+    final Path filePath;
+    final SourceFile source;
+    final TranslationUnit root;
+    final Diagnostics diagnostics;
+
+    ParsedFile (Path filePath, SourceFile source, TranslationUnit root, Diagnostics diagnostics) {
+      this.filePath = filePath;
+      this.source = source;
+      this.root = root;
+      this.diagnostics = diagnostics;
+    }
+
+  }
+
 }
@@ -0,0 +1,230 @@
+package org.opal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A UTF-8 source holds the text of a source file as raw bytes. Files are
+// memory-mapped rather than read, so the text is never copied onto the heap,
+// let alone decoded into UTF-16 and then split into lines as well.
+
+// As a character sequence, a source is a view of its bytes: each byte is one
+// character, and all positions are byte offsets. ASCII text, which covers
+// almost all source code, thus reads the same as before. Non-ASCII characters
+// appear as a multi-byte sequence of characters from 0x80 to 0xFF, which the
+// lexer decodes itself on the rare occasion it needs to. Converting a source
+// or a slice of it to a string decodes it properly.
+
+// The lexer spends much of its time skipping runs of blanks, identifier
+// characters, and comment text. Those runs are found eight bytes at a time by
+// loading a long and testing all of its bytes at once with plain arithmetic
+// (SWAR, or SIMD within a register). The tail of the source, and every run
+// when the opal.scalar property is set, is scanned a byte at a time.
+
+public class Utf8Source implements CharSequence {
+
+  static final boolean SCALAR = Boolean.getBoolean("opal.scalar");
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH = 0x8080808080808080L;
+  private static final long LOW  = 0x7F7F7F7F7F7F7F7FL;
+
+  private final ByteBuffer bytes;
+  private final int offset;
+  private final int length;
+
+  private Utf8Source (ByteBuffer bytes, int offset, int length) {
+    // Bytes are tested in source order, so the first byte of the source must
+    // be the lowest byte of a long
+    this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public static Utf8Source map (Path path) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new Utf8Source(buffer, 0, buffer.limit());
+    }
+  }
+
+  public static Utf8Source of (String text) {
+    var buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    return new Utf8Source(buffer, 0, buffer.limit());
+  }
+
+  @Override
+  public int length () {
+    return length;
+  }
+
+  @Override
+  public char charAt (int index) {
+    return (char)(bytes.get(offset + index) & 0xFF);
+  }
+
+  @Override
+  public Utf8Source subSequence (int start, int end) {
+    return new Utf8Source(bytes, offset + start, end - start);
+  }
+
+  // Decodes the code point whose encoding starts at the given index. Malformed
+  // or truncated sequences decode to the replacement character.
+
+  public int codePointAt (int index) {
+    var lead = charAt(index);
+    int count;
+    int codePoint;
+    if (lead < 0x80)
+      return lead;
+    else if ((lead & 0xE0) == 0xC0) {
+      count = 1;
+      codePoint = lead & 0x1F;
+    } else if ((lead & 0xF0) == 0xE0) {
+      count = 2;
+      codePoint = lead & 0x0F;
+    } else if ((lead & 0xF8) == 0xF0) {
+      count = 3;
+      codePoint = lead & 0x07;
+    } else
+      return 0xFFFD;
+    if (index + count >= length)
+      return 0xFFFD;
+    for (var i = 1; i <= count; i++) {
+      var next = charAt(index + i);
+      if ((next & 0xC0) != 0x80)
+        return 0xFFFD;
+      codePoint = (codePoint << 6) | (next & 0x3F);
+    }
+    return codePoint;
+  }
+
+  // Returns true if the source contains nothing but ASCII characters between
+  // the given indices
+
+  public boolean isAscii (int start, int end) {
+    for (var i = start; i < end; i++)
+      if (bytes.get(offset + i) < 0)
+        return false;
+    return true;
+  }
+
+  // Returns the index of the first byte at or after the given index that is
+  // not a space or tab, or the length of the source if there is none
+
+  public int skipBlanks (int index) {
+    // Most runs are a single blank between tokens, which is not worth
+    // loading a whole word for
+    if (index + 1 < length && isBlank(charAt(index)) && !isBlank(charAt(index + 1)))
+      return index + 1;
+    if (!SCALAR) {
+      for (; index + 8 <= length; index += 8) {
+        var word = bytes.getLong(offset + index);
+        var stop = ~(equal(word, ' ') | equal(word, '\t')) & HIGH;
+        if (stop != 0)
+          return index + first(stop);
+      }
+    }
+    while (index < length && isBlank(charAt(index)))
+      index += 1;
+    return index;
+  }
+
+  // Returns the index of the first byte at or after the given index that is
+  // not an ASCII letter, digit, or underscore. Other characters, including
+  // non-ASCII letters, are left for the caller to classify.
+
+  public int skipWord (int index) {
+    if (!SCALAR) {
+      for (; index + 8 <= length; index += 8) {
+        var word = bytes.getLong(offset + index);
+        var part = (between(word, 'a', 'z') | between(word, 'A', 'Z') | between(word, '0', '9') | equal(word, '_')) & ~word;
+        var stop = ~part & HIGH;
+        if (stop != 0)
+          return index + first(stop);
+      }
+    }
+    while (index < length && isWordByte(charAt(index)))
+      index += 1;
+    return index;
+  }
+
+  // Returns the index of the first asterisk or line terminator at or after the
+  // given index. These are the only characters inside a block comment that the
+  // lexer needs to look at.
+
+  public int skipCommentText (int index) {
+    if (!SCALAR) {
+      for (; index + 8 <= length; index += 8) {
+        var word = bytes.getLong(offset + index);
+        var stop = equal(word, '*') | equal(word, '\n') | equal(word, '\r');
+        if (stop != 0)
+          return index + first(stop);
+      }
+    }
+    while (index < length && charAt(index) != '*' && charAt(index) != '\n' && charAt(index) != '\r')
+      index += 1;
+    return index;
+  }
+
+  // Returns the index of the first line terminator at or after the given
+  // index, which is where a line comment ends
+
+  public int skipLine (int index) {
+    if (!SCALAR) {
+      for (; index + 8 <= length; index += 8) {
+        var word = bytes.getLong(offset + index);
+        var stop = equal(word, '\n') | equal(word, '\r');
+        if (stop != 0)
+          return index + first(stop);
+      }
+    }
+    while (index < length && charAt(index) != '\n' && charAt(index) != '\r')
+      index += 1;
+    return index;
+  }
+
+  private static boolean isBlank (char ch) {
+    return ch == ' ' || ch == '\t';
+  }
+
+  private static boolean isWordByte (char ch) {
+    return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+  }
+
+  // The following return a long with the high bit of each byte set if that
+  // byte satisfies the test, and all other bits clear. Unlike the usual
+  // zero-byte trick, these are exact in every byte, not just the first.
+
+  private static long equal (long word, char ch) {
+    var x = word ^ (ONES * ch);
+    return ~(((x & LOW) + LOW) | x) & HIGH;
+  }
+
+  // Tests whether each byte lies between two ASCII characters, inclusive.
+  // Only the low seven bits of each byte are tested, so callers must mask
+  // out bytes with the high bit set themselves.
+
+  private static long between (long word, char low, char high) {
+    var x = word & LOW;
+    return (x + ONES * (0x80 - low)) & ~(x + ONES * (0x7F - high)) & HIGH;
+  }
+
+  // Returns the index of the first byte whose high bit is set
+
+  private static int first (long mask) {
+    return Long.numberOfTrailingZeros(mask) >>> 3;
+  }
+
+  @Override
+  public String toString () {
+    var text = new byte[length];
+    bytes.get(offset, text);
+    return new String(text, StandardCharsets.UTF_8);
+  }
+
+}
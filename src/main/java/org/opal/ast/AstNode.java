@@ -1,10 +1,14 @@
 package org.opal.ast;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
+import org.opal.Timings;
 import org.opal.Token;
 import org.opal.Visitor;
 import org.opal.ResultVisitor;
+import org.opal.symbol.Scope;
 
 // We use a normalized heterogeneous AST design (Parr, 96). This allows for a
 // relatively simple treatment of child nodes, while permitting the ability to
@@ -13,37 +17,67 @@ import org.opal.ResultVisitor;
 // Some operations require traversing upwards through the AST. These are not
 // common, but they are important. The two options for implementing this are
 // parent pointers and maintaining a stack of nodes. This is the classic
-// space/time trade-off in computer science. I am choosing to use a stack to
-// keep track of the node path. This turned out to be easier and more elegant,
-// albeit slower.
+// space/time trade-off in computer science. Originally, each pass kept a
+// stack of the node path, pushed and popped on every visit. Every node now
+// holds a reference to its parent instead, which costs one field per node but
+// makes upward navigation constant time and available to every pass, without
+// any bookkeeping during traversal.
+
+// The parent is set whenever a node is attached to another node, either as a
+// generic child or through one of the typed setters of the parent, which all
+// go through adopt(). Attaching a node somewhere else later, e.g. when a pass
+// restructures the tree, simply moves it to its new parent.
+
+// Generic children are kept in a plain array, allocated on first use and
+// doubled as needed, rather than a linked list. Most nodes have no generic
+// children at all and pay only for a null reference and a count, and
+// indexed access is constant time.
 
 public abstract class AstNode {
 
-  private final LinkedList<AstNode> children = new LinkedList<>();
+  private static final AstNode[] NO_CHILDREN = {};
+
+  private AstNode[] children = NO_CHILDREN;
+  private int childCount = 0;
+  private AstNode parent = null;
   private Token token;
   private boolean error = false;
 
   public AstNode () {
     token = null;
+    Timings.countNode();
   }
 
   public AstNode (Token token) {
     this.token = token;
     // Inherit error condition from token
     error = token.getError();
+    Timings.countNode();
   }
 
   public void addChild (AstNode node) {
-    children.add(node);
+    if (childCount == children.length)
+      children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+    children[childCount++] = adopt(node);
+  }
+
+  // Makes this node the parent of the given node and returns it, so that
+  // setters can simply write "this.child = adopt(child)". Optional children
+  // are frequently absent, so null is passed through unchanged.
+
+  protected <T extends AstNode> T adopt (T node) {
+    if (node != null)
+      ((AstNode)node).parent = this;
+    return node;
   }
 
   public void addChildren (Iterable<AstNode> nodes) {
     for (var node : nodes)
-      children.add(node);
+      addChild(node);
   }
 
   public boolean hasChildren () {
-    return !children.isEmpty();
+    return childCount > 0;
   }
 
   public boolean getError () {
@@ -55,23 +89,61 @@ public abstract class AstNode {
   }
 
   public AstNode getChild (int index) {
-    return children.get(index);
+    Objects.checkIndex(index, childCount);
+    return children[index];
   }
 
   public int getChildCount () {
-    return children.size();
+    return childCount;
   }
 
   public AstNode getFirstChild () {
-    return children.getFirst();
+    if (childCount == 0)
+      throw new NoSuchElementException();
+    return children[0];
   }
-  
+
   public AstNode getLastChild () {
-    return children.getLast();
+    if (childCount == 0)
+      throw new NoSuchElementException();
+    return children[childCount - 1];
   }
 
   public Iterable<AstNode> getChildren () {
-    return children;
+    return Arrays.asList(children).subList(0, childCount);
+  }
+
+  // The root of the tree has no parent
+
+  public AstNode getParent () {
+    return parent;
+  }
+
+  // Returns the nearest proper ancestor that is an instance of the given
+  // class, or null if there is none
+
+  public <T extends AstNode> T getAncestor (Class<T> type) {
+    var node = parent;
+    while (node != null && !type.isInstance(node))
+      node = node.parent;
+    return type.cast(node);
+  }
+
+  // Nodes that introduce a scope override this to return it. Passes that
+  // create scopes must have run for any node to have one.
+
+  public Scope getScope () {
+    return null;
+  }
+
+  // Returns the scope of the nearest proper ancestor that has one, i.e. the
+  // innermost scope enclosing this node, or null if there is none
+
+  public Scope getEnclosingScope () {
+    var node = parent;
+    while (node != null && node.getScope() == null)
+      node = node.parent;
+    return node != null ? node.getScope() : null;
   }
 
   public Token getToken () {
@@ -57,23 +57,24 @@ public class TranslationUnit extends AstNode {
   }
 
   public void setImportDeclarations (ImportDeclarations importDeclarations) {
-    this.importDeclarations = importDeclarations;
+    this.importDeclarations = adopt(importDeclarations);
   }
 
   public void setOtherDeclarations (OtherDeclarations otherDeclarations) {
-    this.otherDeclarations = otherDeclarations;
+    this.otherDeclarations = adopt(otherDeclarations);
   }
 
   public void setPackageDeclaration (PackageDeclaration packageDeclaration) {
-    this.packageDeclaration = packageDeclaration;
+    this.packageDeclaration = adopt(packageDeclaration);
   }
 
   public void setUseDeclarations (UseDeclarations useDeclarations) {
-    this.useDeclarations = useDeclarations;
+    this.useDeclarations = adopt(useDeclarations);
   }
 
   // ATTRIBUTE METHODS
 
+  @Override
   public Scope getScope () {
     return scope;
   }
@@ -28,7 +28,7 @@ public class ImportDeclaration extends Declaration {
   }
 
   public void setQualifiedName (ImportQualifiedName qualifiedName) {
-    this.qualifiedName = qualifiedName;
+    this.qualifiedName = adopt(qualifiedName);
   }
 
   public ImportQualifiedName qualifiedName () {
@@ -36,7 +36,7 @@ public class ImportDeclaration extends Declaration {
   }
 
   public void setAsName (ImportAsName asName) {
-    this.asName = asName;
+    this.asName = adopt(asName);
   }
 
   public ImportAsName asName () {
@@ -1,6 +1,6 @@
 package org.opal.ast.declaration;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import org.opal.ResultVisitor;
 import org.opal.Visitor;
@@ -8,7 +8,7 @@ import org.opal.ast.AstNode;
 
 public class ImportDeclarations extends AstNode {
 
-  private final LinkedList<ImportDeclaration> importDeclarations = new LinkedList<>();
+  private final ArrayList<ImportDeclaration> importDeclarations = new ArrayList<>();
 
   public ImportDeclarations () {}
 
@@ -23,7 +23,7 @@ public class ImportDeclarations extends AstNode {
   }
 
   public void addImportDeclaration (ImportDeclaration importDeclaration) {
-    importDeclarations.add(importDeclaration);
+    importDeclarations.add(adopt(importDeclaration));
   }
 
   public Iterable<ImportDeclaration> getImportDeclarations () {
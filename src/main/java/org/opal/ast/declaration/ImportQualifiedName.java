@@ -1,6 +1,6 @@
 package org.opal.ast.declaration;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import org.opal.ResultVisitor;
 import org.opal.Visitor;
@@ -9,7 +9,7 @@ import org.opal.ast.AstNode;
 
 public class ImportQualifiedName extends AstNode {
 
-  private final LinkedList<ImportName> children = new LinkedList<>();
+  private final ArrayList<ImportName> children = new ArrayList<>();
 
   public ImportQualifiedName () {}
 
@@ -28,7 +28,7 @@ public class ImportQualifiedName extends AstNode {
   }
 
   public void addImportName (ImportName importName) {
-    children.add(importName);
+    children.add(adopt(importName));
     // Should we propagate errors here or during a semantic analysis pass?
     if (importName.getError())
       setError();
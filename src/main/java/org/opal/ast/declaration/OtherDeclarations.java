@@ -1,5 +1,6 @@
 package org.opal.ast.declaration;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 import org.opal.ResultVisitor;
@@ -12,7 +13,7 @@ public class OtherDeclarations extends AstNode {
   // Leave public for now while experimenting
   public LinkedList<ST> templates;
 
-  private final LinkedList<Declaration> otherDeclarations = new LinkedList<>();
+  private final ArrayList<Declaration> otherDeclarations = new ArrayList<>();
 
   public OtherDeclarations () {
     super();
@@ -30,7 +31,7 @@ public class OtherDeclarations extends AstNode {
   }
 
   public void addOtherDeclaration (Declaration otherDeclaration) {
-    otherDeclarations.add(otherDeclaration);
+    otherDeclarations.add(adopt(otherDeclaration));
   }
 
   public Iterable<Declaration> getOtherDeclarations () {
@@ -33,9 +33,10 @@ public class PackageDeclaration extends AstNode {
   }
 
   public void setPackageName (PackageName packageName) {
-    this.packageName = packageName;
+    this.packageName = adopt(packageName);
   }
 
+  @Override
   public Scope getScope () {
     return scope;
   }
@@ -5,10 +5,20 @@ import org.opal.Visitor;
 import org.opal.ast.AstNode;
 import org.opal.ast.statement.CompoundStatement;
 
+import java.util.function.Supplier;
+
+// When the parser defers a routine body, the node starts out with only a
+// supplier that parses the body, and the compound statement is filled in the
+// first time it is asked for. Later passes may ask from several threads at
+// once, so the body is parsed under a lock, but only the first time.
+
 public class RoutineBody extends AstNode {
 
   CompoundStatement compoundStatement = null;
 
+  // Parses the body, if it has not been parsed yet
+  private volatile Supplier<CompoundStatement> deferredCompoundStatement = null;
+
   public RoutineBody() {
     super();
   }
@@ -24,11 +34,28 @@ public class RoutineBody extends AstNode {
   }
 
   public CompoundStatement getCompoundStatement () {
+    if (deferredCompoundStatement != null)
+      parseDeferredCompoundStatement();
     return compoundStatement;
   }
 
+  private synchronized void parseDeferredCompoundStatement () {
+    if (deferredCompoundStatement != null) {
+      setCompoundStatement(deferredCompoundStatement.get());
+      deferredCompoundStatement = null;
+    }
+  }
+
+  public boolean isDeferred () {
+    return deferredCompoundStatement != null;
+  }
+
+  public void setDeferredCompoundStatement (Supplier<CompoundStatement> parser) {
+    deferredCompoundStatement = parser;
+  }
+
   public void setCompoundStatement (CompoundStatement compoundStatement) {
-    this.compoundStatement = compoundStatement;
+    this.compoundStatement = adopt(compoundStatement);
   }
 
 }
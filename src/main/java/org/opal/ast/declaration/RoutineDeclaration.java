@@ -68,27 +68,27 @@ public class RoutineDeclaration extends Declaration {
   // ***
 
   public void setBody (RoutineBody routineBody) {
-    this.routineBody = routineBody;
+    this.routineBody = adopt(routineBody);
   }
 
   public void setExportSpecifier (ExportSpecifier exportSpecifier) {
-    this.exportSpecifier = exportSpecifier;
+    this.exportSpecifier = adopt(exportSpecifier);
   }
 
   public void setModifiers (RoutineModifiers modifiers) {
-    this.modifiers = modifiers;
+    this.modifiers = adopt(modifiers);
   }
 
   public void setName (RoutineName name) {
-    this.name = name;
+    this.name = adopt(name);
   }
 
   public void setParameters (RoutineParameters parameters) {
-    this.parameters = parameters;
+    this.parameters = adopt(parameters);
   }
 
   public void setReturnTypeSpecifier (RoutineReturnTypeSpecifier returnTypeSpecifier) {
-    this.returnTypeSpecifier = returnTypeSpecifier;
+    this.returnTypeSpecifier = adopt(returnTypeSpecifier);
   }
 
 }
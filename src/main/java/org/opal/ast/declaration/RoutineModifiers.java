@@ -4,11 +4,11 @@ import org.opal.ResultVisitor;
 import org.opal.Visitor;
 import org.opal.ast.AstNode;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class RoutineModifiers extends AstNode {
 
-  private final LinkedList<Modifier> children = new LinkedList<>();
+  private final ArrayList<Modifier> children = new ArrayList<>();
 
   public RoutineModifiers () {
     super();
@@ -29,7 +29,7 @@ public class RoutineModifiers extends AstNode {
   }
 
   public void addModifier (Modifier modifier) {
-    children.add(modifier);
+    children.add(adopt(modifier));
   }
 
 }
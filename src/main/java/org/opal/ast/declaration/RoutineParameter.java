@@ -32,11 +32,11 @@ public class RoutineParameter extends AstNode {
   }
 
   public void setName (RoutineParameterName name) {
-    this.name = name;
+    this.name = adopt(name);
   }
 
   public void setTypeSpecifier (RoutineParameterTypeSpecifier typeSpecifier) {
-    this.typeSpecifier = typeSpecifier;
+    this.typeSpecifier = adopt(typeSpecifier);
   }
 
 }
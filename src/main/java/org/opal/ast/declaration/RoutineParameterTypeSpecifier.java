@@ -29,7 +29,7 @@ public class RoutineParameterTypeSpecifier extends AstNode {
   }
 
   public void setDeclarator (Declarator declarator) {
-    this.declarator = declarator;
+    this.declarator = adopt(declarator);
   }
 
 }
@@ -5,11 +5,11 @@ import org.opal.Token;
 import org.opal.Visitor;
 import org.opal.ast.AstNode;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class RoutineParameters extends AstNode {
 
-  private final LinkedList<RoutineParameter> children = new LinkedList<>();
+  private final ArrayList<RoutineParameter> children = new ArrayList<>();
 
   public RoutineParameters (Token token) {
     super(token);
@@ -30,7 +30,7 @@ public class RoutineParameters extends AstNode {
   }
 
   public void addParameter (RoutineParameter parameter) {
-    children.add(parameter);
+    children.add(adopt(parameter));
   }
 
 }
@@ -28,7 +28,7 @@ public class RoutineReturnTypeSpecifier extends AstNode {
   }
 
   public void setDeclarator (Declarator declarator) {
-    this.declarator = declarator;
+    this.declarator = adopt(declarator);
   }
 
 }
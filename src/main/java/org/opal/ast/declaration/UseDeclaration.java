@@ -24,7 +24,7 @@ public class UseDeclaration extends Declaration {
   }
 
   public void setQualifiedName (UseQualifiedName qualifiedName) {
-    this.qualifiedName = qualifiedName;
+    this.qualifiedName = adopt(qualifiedName);
   }
 
   public UseQualifiedName qualifiedName () {
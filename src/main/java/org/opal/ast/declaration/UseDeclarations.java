@@ -1,6 +1,6 @@
 package org.opal.ast.declaration;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import org.opal.ResultVisitor;
 import org.opal.Visitor;
@@ -8,7 +8,7 @@ import org.opal.ast.AstNode;
 
 public class UseDeclarations extends AstNode {
 
-  private final LinkedList<UseDeclaration> useDeclarations = new LinkedList<>();
+  private final ArrayList<UseDeclaration> useDeclarations = new ArrayList<>();
 
   public UseDeclarations () {}
 
@@ -23,7 +23,7 @@ public class UseDeclarations extends AstNode {
   }
 
   public void addUseDeclaration (UseDeclaration useDeclaration) {
-    useDeclarations.add(useDeclaration);
+    useDeclarations.add(adopt(useDeclaration));
   }
 
   public Iterable<UseDeclaration> getUseDeclarations () {
@@ -35,7 +35,7 @@ public class UseName extends AstNode {
   }
 
   public void setChild (AstNode child) {
-    this.child = child;
+    this.child = adopt(child);
   }
 
 }
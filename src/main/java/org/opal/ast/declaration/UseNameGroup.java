@@ -1,6 +1,6 @@
 package org.opal.ast.declaration;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import org.opal.ResultVisitor;
 import org.opal.Visitor;
@@ -9,7 +9,7 @@ import org.opal.ast.AstNode;
 
 public class UseNameGroup extends AstNode {
 
-  private final LinkedList<UseName> children = new LinkedList<>();
+  private final ArrayList<UseName> children = new ArrayList<>();
 
   public UseNameGroup () {}
 
@@ -28,7 +28,7 @@ public class UseNameGroup extends AstNode {
   }
 
   public void addUseName (UseName useName) {
-    children.add(useName);
+    children.add(adopt(useName));
   }
 
 
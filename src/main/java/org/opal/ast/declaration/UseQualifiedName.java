@@ -28,7 +28,7 @@ public class UseQualifiedName extends AstNode {
   }
 
   public void setUseName (UseName useName) {
-    this.useName = useName;
+    this.useName = adopt(useName);
   }
 
 }
@@ -63,23 +63,23 @@ public class VariableDeclaration extends Declaration {
   }
 
   public void setExportSpecifier (ExportSpecifier exportSpecifier) {
-    this.exportSpecifier = exportSpecifier;
+    this.exportSpecifier = adopt(exportSpecifier);
   }
 
   public void setInitializer (VariableInitializer initializer) {
-    this.initializer = initializer;
+    this.initializer = adopt(initializer);
   }
 
   public void setModifiers (VariableModifiers modifiers) {
-    this.modifiers = modifiers;
+    this.modifiers = adopt(modifiers);
   }
 
   public void setName (VariableName name) {
-    this.name = name;
+    this.name = adopt(name);
   }
 
   public void setTypeSpecifier (VariableTypeSpecifier typeSpecifier) {
-    this.typeSpecifier = typeSpecifier;
+    this.typeSpecifier = adopt(typeSpecifier);
   }
 
 }
@@ -27,7 +27,7 @@ public class VariableInitializer extends AstNode {
   }
 
   public void setExpression (Expression expression) {
-    this.expression = expression;
+    this.expression = adopt(expression);
   }
 
 }
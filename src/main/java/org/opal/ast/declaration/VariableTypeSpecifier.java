@@ -38,7 +38,7 @@ public class VariableTypeSpecifier extends AstNode {
   }
 
   public void setDeclarator (Declarator declarator) {
-    this.declarator = declarator;
+    this.declarator = adopt(declarator);
   }
 
   public void setType (Type type) {
@@ -41,11 +41,11 @@ public class BinaryExpression extends Expression {
   }
 
   public void setLeft (Expression expression) {
-    left = expression;
+    left = adopt(expression);
   }
 
   public void setRight (Expression expression) {
-    right = expression;
+    right = adopt(expression);
   }
 
 
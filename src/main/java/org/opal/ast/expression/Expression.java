@@ -38,7 +38,7 @@ public class Expression extends AstNode {
   }
 
   public void setSubExpression (Expression subExpression) {
-    this.subExpression = subExpression;
+    this.subExpression = adopt(subExpression);
   }
 
   public Type getType () {
@@ -11,6 +11,12 @@ public class FloatingPointLiteral extends Expression {
     super(token);
   }
 
+  // Value computed by the lexer. Single precision values are widened.
+
+  public double getValue () {
+    return getToken().getDoubleValue();
+  }
+
   @Override
   public void accept (Visitor v) {
     v.visit(this);
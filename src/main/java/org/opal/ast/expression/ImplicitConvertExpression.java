@@ -27,7 +27,7 @@ public class ImplicitConvertExpression extends Expression {
   }
 
   public void setOperand (Expression operand) {
-    this.operand = operand;
+    this.operand = adopt(operand);
   }
 
 }
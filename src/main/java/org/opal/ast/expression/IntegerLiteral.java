@@ -11,6 +11,12 @@ public class IntegerLiteral extends Expression {
     super(token);
   }
 
+  // Value computed by the lexer
+
+  public long getValue () {
+    return getToken().getValue();
+  }
+
   @Override
   public void accept (Visitor v) {
     v.visit(this);
@@ -11,6 +11,13 @@ public class UnsignedIntegerLiteral extends Expression {
     super(token);
   }
 
+  // Value computed by the lexer. Values beyond the range of long are
+  // negative, and should be treated as unsigned.
+
+  public long getValue () {
+    return getToken().getValue();
+  }
+
   @Override
   public void accept (Visitor v) {
     v.visit(this);
@@ -6,11 +6,11 @@ import org.opal.Visitor;
 import org.opal.ast.AstNode;
 import org.opal.symbol.Scope;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class CompoundStatement extends Statement {
 
-  private final LinkedList<Statement> statements = new LinkedList<>();
+  private final ArrayList<Statement> statements = new ArrayList<>();
 
   private Scope scope = null;
 
@@ -33,9 +33,10 @@ public class CompoundStatement extends Statement {
   }
 
   public void addStatement (Statement statement) {
-    statements.add(statement);
+    statements.add(adopt(statement));
   }
 
+  @Override
   public Scope getScope () {
     return scope;
   }
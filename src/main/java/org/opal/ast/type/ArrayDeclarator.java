@@ -33,7 +33,7 @@ public class ArrayDeclarator extends Declarator {
   }
 
   public void setExpression (Expression expression) {
-    this.expression = expression;
+    this.expression = adopt(expression);
   }
 
 }
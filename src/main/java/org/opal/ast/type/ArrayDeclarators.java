@@ -1,6 +1,6 @@
 package org.opal.ast.type;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import org.opal.ResultVisitor;
 import org.opal.Visitor;
@@ -8,7 +8,7 @@ import org.opal.ast.AstNode;
 
 public class ArrayDeclarators extends AstNode {
 
-  private final LinkedList<Declarator> children = new LinkedList<>();
+  private final ArrayList<Declarator> children = new ArrayList<>();
 
   public ArrayDeclarators () {}
 
@@ -27,7 +27,7 @@ public class ArrayDeclarators extends AstNode {
   }
 
   public void addArrayDeclarator (Declarator arrayDeclarator) {
-    children.add(arrayDeclarator);
+    children.add(adopt(arrayDeclarator));
   }
 
 }
@@ -43,15 +43,15 @@ public class Declarator extends AstNode {
   }
 
   public void setArrayDeclarators (ArrayDeclarators arrayDeclarators) {
-    this.arrayDeclarators = arrayDeclarators;
+    this.arrayDeclarators = adopt(arrayDeclarators);
   }
 
   public void setDirectDeclarator (Declarator directDeclarator) {
-    this.directDeclarator = directDeclarator;
+    this.directDeclarator = adopt(directDeclarator);
   }
 
   public void setPointerDeclarators (PointerDeclarators pointerDeclarators) {
-    this.pointerDeclarators = pointerDeclarators;
+    this.pointerDeclarators = adopt(pointerDeclarators);
   }
 
 }
@@ -1,6 +1,6 @@
 package org.opal.ast.type;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 import org.opal.ResultVisitor;
 import org.opal.Visitor;
@@ -8,7 +8,7 @@ import org.opal.ast.AstNode;
 
 public class PointerDeclarators extends AstNode {
 
-  private final LinkedList<PointerDeclarator> children = new LinkedList<>();
+  private final ArrayList<PointerDeclarator> children = new ArrayList<>();
 
   public PointerDeclarators () {}
 
@@ -27,7 +27,7 @@ public class PointerDeclarators extends AstNode {
   }
 
   public void addPointerDeclarator (PointerDeclarator pointerDeclarator) {
-    children.add(pointerDeclarator);
+    children.add(adopt(pointerDeclarator));
   }
 
 }
@@ -24,7 +24,7 @@ public class RoutinePointerType extends Declarator {
   }
 
   public void setRoutinePointerTypeParameters (RoutinePointerTypeParameters parameters) {
-    routinePointerTypeParameters = parameters;
+    routinePointerTypeParameters = adopt(parameters);
   }
 
 }
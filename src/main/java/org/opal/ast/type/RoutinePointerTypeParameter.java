@@ -26,7 +26,7 @@ public class RoutinePointerTypeParameter extends Declarator {
   }
 
   public void setDeclarator (Declarator declarator) {
-    this.declarator = declarator;
+    this.declarator = adopt(declarator);
   }
 
 }
@@ -5,11 +5,11 @@ import org.opal.Token;
 import org.opal.Visitor;
 import org.opal.ast.AstNode;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class RoutinePointerTypeParameters extends Declarator {
 
-  private final LinkedList<RoutinePointerTypeParameter> children = new LinkedList<>();
+  private final ArrayList<RoutinePointerTypeParameter> children = new ArrayList<>();
 
   public RoutinePointerTypeParameters (Token token) {
     super(token);
@@ -30,7 +30,7 @@ public class RoutinePointerTypeParameters extends Declarator {
   }
 
   public void addRoutinePointerTypeParameter (RoutinePointerTypeParameter parameter) {
-    children.add(parameter);
+    children.add(adopt(parameter));
   }
 
 }
@@ -0,0 +1,43 @@
+package org.opal.error;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Diagnostics collects the errors reported while processing one translation
+// unit, in the order they were reported. Translation units may be processed
+// concurrently, so errors are not printed as they occur. Instead, the
+// translator prints each unit's diagnostics once all units are done, in a
+// fixed order, so that the output does not depend on thread scheduling.
+
+// A diagnostics object belongs to a single translation unit and is only ever
+// written by the thread processing that unit, so it needs no locking. The one
+// exception is a routine body whose parsing was deferred, which may be parsed
+// on any thread; its errors are added while holding the lock on this object.
+
+public class Diagnostics {
+
+  private final List<Error> errors = new ArrayList<>();
+
+  public Diagnostics () {}
+
+  public void add (Error error) {
+    errors.add(error);
+  }
+
+  public void addAll (Diagnostics diagnostics) {
+    errors.addAll(diagnostics.errors);
+  }
+
+  public List<Error> getErrors () {
+    return errors;
+  }
+
+  public int getErrorCount () {
+    return errors.size();
+  }
+
+  public boolean isEmpty () {
+    return errors.isEmpty();
+  }
+
+}
@@ -3,22 +3,21 @@ package org.opal.error;
 // We will need different error classes because each kind of error
 // has different kinds of things (e.g. tokens, nodes) to report.
 
-import java.util.List;
+import org.opal.SourceFile;
 
 public class LexicalError extends Error {
 
-  private final List<String> lines;
+  private final SourceFile source;
   private final String message;
 
-  private final int line;
-  private final int column;
+  // Offset into the source where the error occurred
+  private final int position;
 
-  public LexicalError (List<String> lines, String message, int line, int column) {
+  public LexicalError (SourceFile source, String message, int position) {
     super();
-    this.lines = lines;
+    this.source = source;
     this.message = message;
-    this.line = line;
-    this.column = column;
+    this.position = position;
   }
 
   // We want to construct a summary line followed by some detail lines. The
@@ -33,9 +32,9 @@ public class LexicalError extends Error {
 
   private String summary () {
     var sb = new StringBuilder("lexical error (");
-    sb.append(line)
+    sb.append(source.getLine(position))
       .append(", ")
-      .append(column)
+      .append(source.getColumn(position))
       .append("): ")
       .append(message);
     return sb.toString();
@@ -44,10 +43,10 @@ public class LexicalError extends Error {
   private String detail () {
     var sb = new StringBuilder();
     sb.append("  | ")
-      .append(lines.get(line-1))
+      .append(source.getLineText(source.getLine(position)))
       .append("\n")
       .append("  | ")
-      .repeat(' ', column - 1)
+      .repeat(' ', source.getColumn(position) - 1)
       .append(TermColor.ANSI_RED)
       .append('^')
       .append(TermColor.ANSI_RESET);
@@ -3,19 +3,18 @@ package org.opal.error;
 // We will need different error classes because each kind of error
 // has different kinds of things (e.g. tokens, nodes) to report.
 
+import org.opal.SourceFile;
 import org.opal.Token;
 
-import java.util.List;
-
 public class SyntaxError extends Error {
 
-  private final List<String> lines;
+  private final SourceFile source;
   private final String message;
   private final Token token;
 
-  public SyntaxError (List<String> lines, String message, Token token) {
+  public SyntaxError (SourceFile source, String message, Token token) {
     super();
-    this.lines = lines;
+    this.source = source;
     this.message = message;
     this.token = token;
   }
@@ -45,7 +44,7 @@ public class SyntaxError extends Error {
   private String detail () {
     var sb = new StringBuffer();
     sb.append("  | ")
-      .append(lines.get(token.getLine()-1))
+      .append(source.getLineText(token.getLine()))
       .append("\n")
       .append("  | ")
       .repeat(' ', token.getColumn() - 1)
@@ -0,0 +1,10 @@
+package org.opal.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.opal.Lex")
+@Label("Lex")
+@Description("Lexes a source file into tokens")
+public class LexEvent extends PhaseEvent {}
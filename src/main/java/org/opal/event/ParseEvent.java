@@ -0,0 +1,10 @@
+package org.opal.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.opal.Parse")
+@Label("Parse")
+@Description("Parses the tokens of a source file into an AST")
+public class ParseEvent extends PhaseEvent {}
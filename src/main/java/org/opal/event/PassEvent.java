@@ -0,0 +1,10 @@
+package org.opal.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.opal.Pass")
+@Label("Pass")
+@Description("Runs one traversal of the semantic passes over the package AST")
+public class PassEvent extends PhaseEvent {}
@@ -0,0 +1,48 @@
+package org.opal.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+// Flight recorder events let a recording of a build show which translation
+// unit and which phase of the compiler the time went into, rather than just
+// anonymous visit frames. Every event carries the name of the phase, the file
+// it was working on, and how many tokens and AST nodes it dealt with.
+
+// Events cost next to nothing unless a recording has them enabled. A disabled
+// event does not pass shouldCommit(), so its fields are never computed, and
+// the event object itself is usually optimized away. Node counts are only
+// kept while counting is on (see Timings), and are zero otherwise.
+
+@Category({ "Opal", "Compiler" })
+@StackTrace(false)
+public abstract class PhaseEvent extends Event {
+
+  @Label("Phase")
+  public String phase;
+
+  @Label("File")
+  public String file;
+
+  @Label("Tokens")
+  public long tokens;
+
+  @Label("Nodes")
+  public long nodes;
+
+  // Ends the event and, if it is to be recorded, fills in its fields and
+  // commits it
+
+  public void finish (String phase, String file, long tokens, long nodes) {
+    end();
+    if (shouldCommit()) {
+      this.phase = phase;
+      this.file = file;
+      this.tokens = tokens;
+      this.nodes = nodes;
+      commit();
+    }
+  }
+
+}
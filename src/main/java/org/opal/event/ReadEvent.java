@@ -0,0 +1,10 @@
+package org.opal.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.opal.Read")
+@Label("File Read")
+@Description("Reads a source file")
+public class ReadEvent extends PhaseEvent {}
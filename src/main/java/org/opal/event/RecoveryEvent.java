@@ -0,0 +1,20 @@
+package org.opal.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// The tokens of a recovery event are the tokens skipped to get back in sync
+
+@Name("org.opal.Recovery")
+@Label("Parser Error Recovery")
+@Description("Skips tokens after a syntax error until the parser is back in sync")
+public class RecoveryEvent extends PhaseEvent {
+
+  @Label("Line")
+  public int line;
+
+  @Label("Column")
+  public int column;
+
+}
@@ -0,0 +1,21 @@
+package org.opal.event;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.opal.ResolutionMiss")
+@Label("Symbol Resolution Miss")
+@Description("Looks up a name that is not defined in any open scope")
+public class ResolutionMissEvent extends PhaseEvent {
+
+  @Label("Name")
+  public String name;
+
+  @Label("Line")
+  public int line;
+
+  @Label("Column")
+  public int column;
+
+}
@@ -0,0 +1,119 @@
+package org.opal.symbol;
+
+import java.util.Arrays;
+
+// The identifier table interns the names that occur in a package. Every
+// distinct name is stored once and given a dense int id, counting from zero
+// in order of first appearance. The lexer interns each word straight from the
+// source text as it scans, so the same name is never copied out twice, and
+// symbol tables and resolvers key on the ids. From then on, no names need to
+// be hashed or compared as strings.
+
+// A single table is shared by every file of a package, so that the same name
+// gets the same id everywhere. Files are lexed in parallel, so the table is
+// synchronized. Ids stay valid for the lifetime of the table.
+
+public class IdentifierTable {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  // Names and their hash codes, indexed by id
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  // Open-addressing hash index holding id + 1, or zero for an empty slot. It
+  // is kept at most half full, so probe sequences stay short.
+  private int[] index = new int[INITIAL_CAPACITY * 2];
+
+  public IdentifierTable () {}
+
+  // Returns the id of the name spanning the given range of the text, adding
+  // the name if it is new
+
+  public synchronized int intern (CharSequence text, int start, int end) {
+    var hash = hash(text, start, end);
+    var mask = index.length - 1;
+    var i = mix(hash) & mask;
+    while (index[i] != 0) {
+      var id = index[i] - 1;
+      if (hashes[id] == hash && matches(names[id], text, start, end))
+        return id;
+      i = (i + 1) & mask;
+    }
+    if (size == names.length) {
+      names = Arrays.copyOf(names, size * 2);
+      hashes = Arrays.copyOf(hashes, size * 2);
+    }
+    var id = size++;
+    names[id] = text.subSequence(start, end).toString();
+    hashes[id] = hash;
+    index[i] = id + 1;
+    if (size * 2 > index.length)
+      rehash();
+    return id;
+  }
+
+  public int intern (String name) {
+    return intern(name, 0, name.length());
+  }
+
+  // Returns the id of the given name, or -1 if it has not been interned
+
+  public synchronized int lookup (String name) {
+    var hash = hash(name, 0, name.length());
+    var mask = index.length - 1;
+    var i = mix(hash) & mask;
+    while (index[i] != 0) {
+      var id = index[i] - 1;
+      if (hashes[id] == hash && names[id].equals(name))
+        return id;
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  public synchronized String getName (int id) {
+    return names[id];
+  }
+
+  public synchronized int size () {
+    return size;
+  }
+
+  private void rehash () {
+    index = new int[index.length * 2];
+    var mask = index.length - 1;
+    for (var id = 0; id < size; id++) {
+      var i = mix(hashes[id]) & mask;
+      while (index[i] != 0)
+        i = (i + 1) & mask;
+      index[i] = id + 1;
+    }
+  }
+
+  // Same hash code as String.hashCode, computed without creating a string
+
+  private static int hash (CharSequence text, int start, int end) {
+    var hash = 0;
+    for (var i = start; i < end; i++)
+      hash = 31 * hash + text.charAt(i);
+    return hash;
+  }
+
+  // Spreads the high bits of the hash code into the low bits used as index
+
+  private static int mix (int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches (String name, CharSequence text, int start, int end) {
+    if (name.length() != end - start)
+      return false;
+    for (var i = 0; i < name.length(); i++)
+      if (name.charAt(i) != text.charAt(start + i))
+        return false;
+    return true;
+  }
+
+}
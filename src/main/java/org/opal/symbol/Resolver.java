@@ -0,0 +1,127 @@
+package org.opal.symbol;
+
+import java.util.Arrays;
+
+// A resolver answers name lookups for the scopes that are currently open
+// during a traversal. Scope.resolve walks outwards through the enclosing
+// scopes and probes each one's symbol table, so its cost grows with the
+// nesting depth. The resolver instead keeps a single table from each name to
+// a stack of bindings for that name, innermost first. This is the classic
+// scoped hash table. The symbol a name refers to is simply the top of its
+// stack, so any lookup costs one probe, however deeply scopes are nested.
+// Names are identified by their dense identifier ids, so the table is just
+// an array indexed by id.
+
+// Entering a scope pushes a binding for each of its symbols onto the stacks
+// of their names, shadowing outer bindings of the same name. Each binding is
+// also recorded on a trail. Exiting the scope pops the trail back to where it
+// was when the scope was entered, which unbinds all of the scope's names at
+// once, without looking at its symbol table again.
+
+// Scopes must be entered from the outermost inwards and exited in reverse,
+// mirroring the enclosing scope chain. Each traversal needs its own resolver.
+
+// A resolver may also start out inside the scopes that are open in another
+// resolver. Names it does not bind itself are looked up in the other one,
+// so the outer scopes are not entered again, which matters when there are
+// many inner resolvers, e.g. one for each routine body in the package. The
+// outer resolver must not change while inner ones are in use, but inner
+// resolvers may then use it from any number of threads.
+
+public class Resolver {
+
+  // Innermost binding for each identifier id, or null if the name is unbound
+  private Binding[] bindings = new Binding[256];
+
+  // Bindings in the order they were made
+  private Binding[] trail = new Binding[64];
+  private int trailSize = 0;
+
+  // Trail size at the time each open scope was entered
+  private int[] marks = new int[16];
+  private int depth = 0;
+
+  // Resolver whose open scopes enclose those of this one, or null
+  private final Resolver outer;
+
+  public Resolver () {
+    outer = null;
+  }
+
+  public Resolver (Resolver outer) {
+    this.outer = outer;
+  }
+
+  // Enters the given scope and all of its enclosing scopes that are not yet
+  // open, outermost first
+
+  public void enterAll (Scope scope) {
+    if (scope.getEnclosingScope() != null && scope.getDepth() > getDepth())
+      enterAll(scope.getEnclosingScope());
+    enter(scope);
+  }
+
+  public void enter (Scope scope) {
+    if (depth == marks.length)
+      marks = Arrays.copyOf(marks, depth * 2);
+    marks[depth++] = trailSize;
+    for (var symbol : scope.getSymbols())
+      bind(symbol);
+  }
+
+  // Adds a symbol to the innermost open scope, e.g. for a declaration that
+  // is encountered part way through a block
+
+  public void bind (Symbol symbol) {
+    var id = symbol.getId();
+    if (id >= bindings.length)
+      bindings = Arrays.copyOf(bindings, Math.max(id + 1, bindings.length * 2));
+    var binding = new Binding(symbol, bindings[id]);
+    bindings[id] = binding;
+    if (trailSize == trail.length)
+      trail = Arrays.copyOf(trail, trailSize * 2);
+    trail[trailSize++] = binding;
+  }
+
+  // Exits the innermost open scope, restoring whatever its names shadowed
+
+  public void exit () {
+    var mark = marks[--depth];
+    while (trailSize > mark) {
+      var binding = trail[--trailSize];
+      trail[trailSize] = null;
+      bindings[binding.symbol.getId()] = binding.shadowed;
+    }
+  }
+
+  // Returns the symbol the name with the given identifier id refers to in the
+  // innermost open scope, or null if it is not defined in any open scope
+
+  public Symbol resolve (int id) {
+    var binding = id >= 0 && id < bindings.length ? bindings[id] : null;
+    if (binding != null)
+      return binding.symbol;
+    return outer != null ? outer.resolve(id) : null;
+  }
+
+  // Returns the number of open scopes, including those of the outer resolver
+
+  public int getDepth () {
+    return outer != null ? outer.getDepth() + depth : depth;
+  }
+
+  private static class Binding {
+
+    final Symbol symbol;
+
+    // Binding of the same name in an enclosing scope, if any
+    final Binding shadowed;
+
+    Binding (Symbol symbol, Binding shadowed) {
+      this.symbol = symbol;
+      this.shadowed = shadowed;
+    }
+
+  }
+
+}
@@ -1,17 +1,19 @@
 package org.opal.symbol;
 
 import org.opal.SymbolVisitor;
+import org.opal.type.RoutineType;
 import org.opal.type.Type;
 
 import java.util.LinkedList;
 
 public class RoutineSymbol extends Symbol {
 
+  private RoutineType type = null;
   private Type returnType = null;
   private final LinkedList<Type> parameterTypes = new LinkedList<>();
 
-  public RoutineSymbol (String name) {
-    super(name);
+  public RoutineSymbol (String name, int id) {
+    super(name, id);
   }
 
   @Override
@@ -27,6 +29,14 @@ public class RoutineSymbol extends Symbol {
     return parameterTypes.get(index);
   }
 
+  public RoutineType getType () {
+    return type;
+  }
+
+  public void setType (RoutineType type) {
+    this.type = type;
+  }
+
   public Type getReturnType () {
     return returnType;
   }
@@ -6,6 +6,9 @@ public class Scope {
   private final SymbolTable symbolTable;
   private Scope enclosingScope;
 
+  // Number of scopes enclosing this one, so the outermost scope has depth zero
+  private int depth = 0;
+
   public Scope (Scope.Kind kind) {
     this.kind = kind;
     symbolTable = new SymbolTable();
@@ -13,15 +16,18 @@ public class Scope {
   }
 
   public void define (Symbol symbol) {
+    symbol.setCoordinate(this, symbolTable.size());
     symbolTable.insert(symbol);
   }
 
-  public Symbol resolve (String name, boolean recurse) {
+  // Names are given by their id in the identifier table
+
+  public Symbol resolve (int id, boolean recurse) {
     // Recurse through scope stack, looking for symbol
-    var symbol = symbolTable.lookup(name);
+    var symbol = symbolTable.lookup(id);
     if (symbol == null)
       if (recurse && enclosingScope != null)
-        symbol = enclosingScope.resolve(name, true);
+        symbol = enclosingScope.resolve(id, true);
     return symbol;
   }
 
@@ -29,12 +35,21 @@ public class Scope {
     return enclosingScope;
   }
 
+  public int getDepth () {
+    return depth;
+  }
+
+  public Iterable<Symbol> getSymbols () {
+    return symbolTable.getSymbols();
+  }
+
   public Scope.Kind getKind () {
     return kind;
   }
 
   public void setEnclosingScope (Scope scope) {
     enclosingScope = scope;
+    depth = scope != null ? scope.depth + 1 : 0;
   }
 
   // Where is package scope? Is it the same as global scope? We might be able
@@ -2,20 +2,55 @@ package org.opal.symbol;
 
 import org.opal.ResultVisitor;
 import org.opal.SymbolVisitor;
+import org.opal.Timings;
 import org.opal.Visitor;
 
 public abstract class Symbol {
 
   private final String name;
 
-  public Symbol (String name) {
+  // Identifier id of the name in the package's identifier table
+  private final int id;
+
+  // Scope the symbol is defined in, and its position among that scope's
+  // symbols, counting from zero in order of definition
+  private Scope scope = null;
+  private int slot = -1;
+
+  public Symbol (String name, int id) {
     this.name = name;
+    this.id = id;
+    Timings.countSymbol();
   }
 
   public String getName () {
     return name;
   }
 
+  public int getId () {
+    return id;
+  }
+
+  public Scope getScope () {
+    return scope;
+  }
+
+  // Together, depth and slot form the symbol's coordinate: which of the
+  // enclosing scopes defines it, and where within that scope.
+
+  public int getDepth () {
+    return scope != null ? scope.getDepth() : -1;
+  }
+
+  public int getSlot () {
+    return slot;
+  }
+
+  void setCoordinate (Scope scope, int slot) {
+    this.scope = scope;
+    this.slot = slot;
+  }
+
   public abstract void accept (SymbolVisitor v);
 
 }
@@ -1,20 +1,85 @@
 package org.opal.symbol;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+
+// A symbol table maps identifier ids to the symbols defined in one scope. It
+// is an open-addressing hash map specialized for int keys, so lookups neither
+// hash nor compare strings, and no key objects are boxed. Tables start out
+// small, since most scopes only define a handful of symbols.
 
 public class SymbolTable {
 
-  private final HashMap<String, Symbol> data;
+  private static final int INITIAL_CAPACITY = 8;
+
+  // Identifier id + 1 for each slot, or zero for an empty slot
+  private int[] keys;
+  private Symbol[] values;
+  private int size = 0;
+
+  // Symbols in order of definition
+  private final ArrayList<Symbol> symbols = new ArrayList<>();
 
   public SymbolTable () {
-    data = new HashMap<>();
+    keys = new int[INITIAL_CAPACITY];
+    values = new Symbol[INITIAL_CAPACITY];
   }
 
+  // A symbol defined again under the same name replaces the earlier one
+
   public void insert (Symbol symbol) {
-    data.put(symbol.getName(), symbol);
+    var id = symbol.getId();
+    if (id < 0)
+      throw new IllegalArgumentException("symbol '" + symbol.getName() + "' has no identifier id");
+    var i = find(id);
+    if (keys[i] != 0) {
+      symbols.set(symbols.indexOf(values[i]), symbol);
+      values[i] = symbol;
+      return;
+    }
+    keys[i] = id + 1;
+    values[i] = symbol;
+    symbols.add(symbol);
+    size += 1;
+    if (size * 2 > keys.length)
+      rehash();
+  }
+
+  public Symbol lookup (int id) {
+    if (id < 0)
+      return null;
+    return values[find(id)];
+  }
+
+  public int size () {
+    return size;
+  }
+
+  public Iterable<Symbol> getSymbols () {
+    return symbols;
   }
 
-  public Symbol lookup (String name) {
-      return data.getOrDefault(name, null);
+  // Returns the slot holding the given id, or the empty slot where it belongs
+
+  private int find (int id) {
+    var mask = keys.length - 1;
+    var i = (id * 0x9E3779B9) >>> 16 & mask;
+    while (keys[i] != 0 && keys[i] != id + 1)
+      i = (i + 1) & mask;
+    return i;
   }
+
+  private void rehash () {
+    var oldKeys = keys;
+    var oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new Symbol[oldKeys.length * 2];
+    for (var i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        var j = find(oldKeys[i] - 1);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
 }
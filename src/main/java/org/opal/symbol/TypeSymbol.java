@@ -7,8 +7,8 @@ public class TypeSymbol extends Symbol {
 
   private final Type type;
 
-  public TypeSymbol (String name, Type type) {
-    super(name);
+  public TypeSymbol (String name, int id, Type type) {
+    super(name, id);
     this.type = type;
     // Not sure if we actually need a link back or not
     //type.setSymbol(this);
@@ -10,8 +10,8 @@ public class VariableSymbol extends Symbol {
 
   private Type type;
 
-  public VariableSymbol (String name) {
-    super(name);
+  public VariableSymbol (String name, int id) {
+    super(name, id);
   }
 
   @Override
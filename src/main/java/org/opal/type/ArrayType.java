@@ -1,30 +1,45 @@
 package org.opal.type;
 
-import org.opal.ast.expression.Expression;
+// Array types are immutable and canonical, like pointer types. An array type
+// is identified by its element type and its size.
+
+// The size is only known when the declarator gives it as an integer literal.
+// Until constant expressions can be evaluated, any other size is recorded as
+// unknown, as is a missing size.
 
 public class ArrayType extends Type {
 
-  private Type elementType;
-  private Expression size;
+  public static final long UNKNOWN_SIZE = -1;
+
+  private final Type elementType;
+  private final long size;
 
-  public ArrayType () {
+  ArrayType (Type elementType, long size) {
     super(Type.Kind.ARRAY);
+    this.elementType = elementType;
+    this.size = size;
   }
 
   public Type getElementType () {
     return elementType;
   }
 
-  public Expression getSize () {
+  public long getSize () {
     return size;
   }
 
-  public void setElementType (Type type) {
-    this.elementType = type;
+  public boolean hasSize () {
+    return size != UNKNOWN_SIZE;
   }
 
-  public void setSize (Expression size) {
-    this.size = size;
+  @Override
+  public boolean equals (Object o) {
+    return o instanceof ArrayType other && elementType == other.elementType && size == other.size;
+  }
+
+  @Override
+  public int hashCode () {
+    return 31 * System.identityHashCode(elementType) + Long.hashCode(size);
   }
 
   public String toString () {
@@ -1,10 +1,13 @@
 package org.opal.type;
 
+// Nominal types are canonical per name. They are created through a type
+// table, so two nominal types with the same name are the same object.
+
 public class NominalType extends Type {
 
   private final String text;
 
-  public NominalType (String text) {
+  NominalType (String text) {
     super(Kind.NOMINAL);
     this.text = text;
   }
@@ -13,4 +16,18 @@ public class NominalType extends Type {
     return text;
   }
 
+  @Override
+  public boolean equals (Object o) {
+    return o instanceof NominalType other && text.equals(other.text);
+  }
+
+  @Override
+  public int hashCode () {
+    return text.hashCode();
+  }
+
+  public String toString () {
+    return text;
+  }
+
 }
@@ -1,19 +1,35 @@
 package org.opal.type;
 
+// Pointer types are immutable and canonical. They are only created through a
+// type table, which guarantees that there is exactly one pointer type per
+// pointee type, so two pointer types are equal if and only if they are the
+// same object.
+
 public class PointerType extends Type {
 
-  private Type pointeeType;
+  private final Type pointeeType;
 
-  public PointerType () {
+  PointerType (Type pointeeType) {
     super(Kind.POINTER);
+    this.pointeeType = pointeeType;
   }
 
   public Type getPointeeType () {
     return pointeeType;
   }
 
-  public void setPointeeType (Type type) {
-    this.pointeeType = type;
+  // Structural equality is only used by the type table to find the canonical
+  // instance. Component types are already canonical, so they are compared by
+  // reference.
+
+  @Override
+  public boolean equals (Object o) {
+    return o instanceof PointerType other && pointeeType == other.pointeeType;
+  }
+
+  @Override
+  public int hashCode () {
+    return 31 * Kind.POINTER.hashCode() + System.identityHashCode(pointeeType);
   }
 
   public String toString () {
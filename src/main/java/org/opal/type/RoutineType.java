@@ -0,0 +1,61 @@
+package org.opal.type;
+
+import java.util.List;
+
+// Routine types are immutable and canonical. A routine type is identified by
+// its return type and the types of its parameters, in order.
+
+public class RoutineType extends Type {
+
+  private final Type returnType;
+  private final List<Type> parameterTypes;
+
+  RoutineType (Type returnType, List<Type> parameterTypes) {
+    super(Kind.ROUTINE);
+    this.returnType = returnType;
+    this.parameterTypes = List.copyOf(parameterTypes);
+  }
+
+  public Type getReturnType () {
+    return returnType;
+  }
+
+  public List<Type> getParameterTypes () {
+    return parameterTypes;
+  }
+
+  public int getParameterCount () {
+    return parameterTypes.size();
+  }
+
+  @Override
+  public boolean equals (Object o) {
+    if (!(o instanceof RoutineType other) || returnType != other.returnType)
+      return false;
+    if (parameterTypes.size() != other.parameterTypes.size())
+      return false;
+    for (var i = 0; i < parameterTypes.size(); i++)
+      if (parameterTypes.get(i) != other.parameterTypes.get(i))
+        return false;
+    return true;
+  }
+
+  @Override
+  public int hashCode () {
+    var hash = System.identityHashCode(returnType);
+    for (var parameterType : parameterTypes)
+      hash = 31 * hash + System.identityHashCode(parameterType);
+    return hash;
+  }
+
+  public String toString () {
+    var sb = new StringBuilder("routine (");
+    for (var i = 0; i < parameterTypes.size(); i++) {
+      if (i > 0)
+        sb.append(", ");
+      sb.append(parameterTypes.get(i));
+    }
+    return sb.append(") returning ").append(returnType).toString();
+  }
+
+}
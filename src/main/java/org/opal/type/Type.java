@@ -17,6 +17,7 @@ public class Type {
     NOMINAL,
     PRIMITIVE,
     POINTER,
+    ROUTINE,
   }
 
 }
@@ -0,0 +1,52 @@
+package org.opal.type;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The type table hash-conses types: every structural type (pointer, array,
+// routine) and nominal type is created through it, and it hands back the one
+// canonical instance for each distinct type. Types can therefore be compared
+// with == throughout semantic analysis, just like the primitive type
+// singletons, and a type shared by many declarations exists only once.
+
+// Types are built bottom-up. The component types passed in must themselves
+// be canonical, i.e. primitive types or types obtained from the same table.
+
+// A table is shared by all passes over a package. It is safe to use from
+// several threads at once.
+
+public class TypeTable {
+
+  private final ConcurrentHashMap<Type, Type> types = new ConcurrentHashMap<>();
+
+  public TypeTable () {}
+
+  public PointerType pointerTo (Type pointeeType) {
+    return (PointerType)intern(new PointerType(pointeeType));
+  }
+
+  public ArrayType arrayOf (Type elementType, long size) {
+    return (ArrayType)intern(new ArrayType(elementType, size));
+  }
+
+  public RoutineType routine (Type returnType, List<Type> parameterTypes) {
+    return (RoutineType)intern(new RoutineType(returnType, parameterTypes));
+  }
+
+  public NominalType nominal (String text) {
+    return (NominalType)intern(new NominalType(text));
+  }
+
+  // Returns the number of distinct types created so far, not counting the
+  // primitive types
+
+  public int size () {
+    return types.size();
+  }
+
+  private Type intern (Type type) {
+    var existing = types.putIfAbsent(type, type);
+    return existing != null ? existing : type;
+  }
+
+}
@@ -0,0 +1,77 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opal.ast.TranslationUnit;
+import org.opal.ast.declaration.VariableDeclaration;
+import org.opal.ast.expression.BinaryExpression;
+import org.opal.ast.expression.Expression;
+import org.opal.ast.expression.UnaryExpression;
+import org.opal.error.Diagnostics;
+
+// Binary expressions are parsed by precedence climbing. The trees must keep
+// the shapes that the recursive descent parser, with one method per
+// precedence level, used to build. Each expression is parsed as the
+// initializer of a variable and printed fully parenthesized.
+
+class ExpressionParserTest {
+
+  private static String parse (String expression) {
+    var file = new SourceFile("package test;\nvar x: int32 = " + expression + ";\n");
+    var diagnostics = new Diagnostics();
+    var root = (TranslationUnit)new Parser(new Lexer(file).process(), file, diagnostics).process();
+    Assertions.assertTrue(diagnostics.isEmpty(), expression);
+    var declaration = (VariableDeclaration)root.getOtherDeclarations().getOtherDeclarations().iterator().next();
+    return print(declaration.getInitializer().getExpression());
+  }
+
+  private static String print (Expression node) {
+    if (node instanceof BinaryExpression binary)
+      return "(" + print(binary.getLeft()) + " " + binary.getToken().getLexeme() + " " + print(binary.getRight()) + ")";
+    else if (node instanceof UnaryExpression unary)
+      return "(" + unary.getToken().getLexeme() + print(unary.getSubExpression()) + ")";
+    else if (node.getToken() == null)
+      return print(node.getSubExpression());
+    else
+      return node.getToken().getLexeme();
+  }
+
+  @Test
+  void sameLevelIsLeftAssociative () {
+    Assertions.assertEquals("((a - b) - c)", parse("a - b - c"));
+    Assertions.assertEquals("((a / b) * c)", parse("a / b * c"));
+    Assertions.assertEquals("((a << b) >> c)", parse("a << b >> c"));
+    Assertions.assertEquals("((a or b) or c)", parse("a or b or c"));
+  }
+
+  @Test
+  void assignmentIsLeftAssociative () {
+    Assertions.assertEquals("((a = b) = c)", parse("a = b = c"));
+    Assertions.assertEquals("((a += b) -= c)", parse("a += b -= c"));
+  }
+
+  @Test
+  void tighterLevelBindsFirst () {
+    Assertions.assertEquals("(a + (b * c))", parse("a + b * c"));
+    Assertions.assertEquals("((a * b) + c)", parse("a * b + c"));
+    Assertions.assertEquals("(a or (b and c))", parse("a or b and c"));
+    Assertions.assertEquals("((a and b) or c)", parse("a and b or c"));
+    Assertions.assertEquals("(a | (b ^ (c & d)))", parse("a | b ^ c & d"));
+    Assertions.assertEquals("((a < b) == (c > d))", parse("a < b == c > d"));
+    Assertions.assertEquals("((a << 1) < (b + 2))", parse("a << 1 < b + 2"));
+    Assertions.assertEquals("(a = (b or c))", parse("a = b or c"));
+  }
+
+  @Test
+  void unaryOperatorsBindTighterThanBinary () {
+    Assertions.assertEquals("(((-a) * b) + (!c))", parse("-a * b + !c"));
+  }
+
+  @Test
+  void everyLevelTogether () {
+    Assertions.assertEquals(
+      "(a = (((((((((((-b) * c) + d) << 1) < e) == f) & g) ^ h) | i) and j) or (k % 2)))",
+      parse("a = -b * c + d << 1 < e == f & g ^ h | i and j or k % 2"));
+  }
+
+}
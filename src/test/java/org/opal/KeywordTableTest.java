@@ -0,0 +1,56 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+// The keyword table must agree with the forward lookup table on every word:
+// each keyword maps to its kind, wherever it sits in the text, and a word
+// that differs from a keyword by one character is only recognized if it is
+// a keyword itself.
+
+class KeywordTableTest {
+
+  private static final Map<String, Token.Kind> KEYWORDS = new LookupTable().getForwardLookupTable();
+
+  private static Token.Kind lookup (String word) {
+    var text = "(" + word + ")";
+    return KeywordTable.lookup(text, 1, text.length() - 1);
+  }
+
+  @Test
+  void everyKeywordMapsToItsKind () {
+    for (var entry : KEYWORDS.entrySet()) {
+      Assertions.assertEquals(entry.getValue(), lookup(entry.getKey()), entry.getKey());
+      Assertions.assertEquals(entry.getKey(), KeywordTable.getText(entry.getValue()));
+    }
+  }
+
+  @Test
+  void nearMissesAreNotKeywords () {
+    for (var keyword : KEYWORDS.keySet()) {
+      var length = keyword.length();
+      var nearMisses = new String[] {
+        keyword.substring(0, length - 1),
+        keyword.substring(1),
+        keyword + "s",
+        keyword + "_",
+        "_" + keyword,
+        keyword.substring(0, length - 1) + (char)(keyword.charAt(length - 1) + 1),
+        (char)(keyword.charAt(0) + 1) + keyword.substring(1),
+        keyword.toUpperCase(),
+        Character.toUpperCase(keyword.charAt(0)) + keyword.substring(1)
+      };
+      for (var word : nearMisses)
+        Assertions.assertEquals(KEYWORDS.get(word), lookup(word), word);
+    }
+  }
+
+  @Test
+  void identifiersAreNotKeywords () {
+    for (var word : new String[] { "x", "i", "value", "int33", "defined", "classify", "a_very_long_identifier" })
+      Assertions.assertNull(lookup(word), word);
+  }
+
+}
@@ -0,0 +1,50 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opal.error.Diagnostics;
+
+import java.util.List;
+
+// An error in a routine body that was skipped by a lazy parse is only found
+// once the body is parsed. After parseDeferredBodies, the diagnostics must be
+// the same as those of an eager parse.
+
+class LazyRoutineBodyTest {
+
+  private static final String SOURCE = """
+    package test;
+
+    def f (a: int32) -> int32 {
+      if (a > 1) {
+      }
+    }
+
+    def g (a: int32) -> int32 {
+      if (a * ) {
+      }
+    }
+
+    var x: int32 = 1;
+    """;
+
+  private static List<String> parse (boolean lazy, boolean flush) {
+    var file = new SourceFile(SOURCE);
+    var diagnostics = new Diagnostics();
+    var parser = new Parser(new Lexer(file).process(), file, diagnostics);
+    parser.setLazyRoutineBodies(lazy);
+    parser.process();
+    if (flush)
+      parser.parseDeferredBodies();
+    return diagnostics.getErrors().stream().map(Object::toString).toList();
+  }
+
+  @Test
+  void deferredErrorIsReportedAfterFlush () {
+    var eager = parse(false, false);
+    Assertions.assertFalse(eager.isEmpty());
+    Assertions.assertTrue(parse(true, false).isEmpty());
+    Assertions.assertEquals(eager, parse(true, true));
+  }
+
+}
@@ -0,0 +1,80 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opal.error.Diagnostics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+// Parsing the declarations of a large file in parallel chunks must give the
+// same diagnostics and the same AST as parsing it serially, including the
+// error flags on tokens, even when chunks with errors are thrown away.
+
+class ParallelParseTest {
+
+  // Enough declarations for several chunks, with a syntax error in some of
+  // them
+  private static final int DECLARATIONS = 20_000;
+
+  private static String source () {
+    var sb = new StringBuilder("package test;\n\n");
+    for (var i = 0; i < DECLARATIONS; i++) {
+      if (i % 3_001 == 1_000)
+        sb.append("var v").append(i).append(": int32 = ;\n");
+      else if (i % 4_999 == 2_000)
+        sb.append("var v").append(i).append(" int32 = 1;\n");
+      else if (i % 7_001 == 3_000)
+        sb.append("var ").append(i).append(": int32 = 1;\n");
+      else
+        sb.append("var v").append(i).append(": int32 = ").append(i % 97).append(";\n");
+    }
+    return sb.toString();
+  }
+
+  // Holds the diagnostics of a parse and the dump of its AST
+
+  private static class Result {
+
+    final List<String> errors;
+    final String dump;
+
+    Result (List<String> errors, String dump) {
+      this.errors = errors;
+      this.dump = dump;
+    }
+
+  }
+
+  private static Result parse (String text, boolean parallel) {
+    var file = new SourceFile(text);
+    var diagnostics = new Diagnostics();
+    var parser = new Parser(new Lexer(file).process(), file, diagnostics);
+    parser.setParallelDeclarations(parallel);
+    var root = parser.process();
+    var bytes = new ByteArrayOutputStream();
+    var out = System.out;
+    System.setOut(new PrintStream(bytes, true));
+    try {
+      new Pass1(root).process();
+    } finally {
+      System.setOut(out);
+    }
+    var errors = diagnostics.getErrors().stream().map(Object::toString).toList();
+    return new Result(errors, bytes.toString());
+  }
+
+  @Test
+  void parallelParseMatchesSerialParse () {
+    var text = source();
+    Assertions.assertTrue(new Lexer(new SourceFile(text)).process().getBuffer().size() > 1 << 16);
+    var serial = parse(text, false);
+    var parallel = parse(text, true);
+    Assertions.assertFalse(serial.errors.isEmpty());
+    Assertions.assertTrue(serial.dump.contains("(error)"));
+    Assertions.assertEquals(serial.errors, parallel.errors);
+    Assertions.assertEquals(serial.dump, parallel.dump);
+  }
+
+}
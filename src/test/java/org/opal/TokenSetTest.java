@@ -0,0 +1,120 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+// Token sets replaced EnumSets in the first and follow sets. Membership and
+// unions must agree with EnumSet for any set of kinds, including kinds on
+// either side of the boundaries between the longs of the mask, and the first
+// and follow sets must hold the same kinds as the EnumSets they replaced.
+
+class TokenSetTest {
+
+  private static final Token.Kind[] KINDS = Token.Kind.values();
+
+  private static void assertSame (EnumSet<Token.Kind> expected, TokenSet actual) {
+    for (var kind : KINDS)
+      Assertions.assertEquals(expected.contains(kind), actual.contains(kind), kind + " in " + actual);
+  }
+
+  private static EnumSet<Token.Kind> randomSet (Random random) {
+    var set = EnumSet.noneOf(Token.Kind.class);
+    var density = random.nextDouble();
+    for (var kind : KINDS)
+      if (random.nextDouble() < density)
+        set.add(kind);
+    return set;
+  }
+
+  private static TokenSet toTokenSet (EnumSet<Token.Kind> set) {
+    return TokenSet.of(set.toArray(new Token.Kind[0]));
+  }
+
+  @Test
+  void containsAgreesWithEnumSet () {
+    var random = new Random(17);
+    for (var i = 0; i < 1_000; i++) {
+      var set = randomSet(random);
+      assertSame(set, toTokenSet(set));
+    }
+    assertSame(EnumSet.noneOf(Token.Kind.class), TokenSet.EMPTY);
+    assertSame(EnumSet.allOf(Token.Kind.class), TokenSet.of(KINDS));
+  }
+
+  @Test
+  void wordBoundaries () {
+    for (var ordinal : new int[] { 0, 63, 64, 127, 128, KINDS.length - 1 }) {
+      if (ordinal >= KINDS.length)
+        continue;
+      var kind = KINDS[ordinal];
+      assertSame(EnumSet.of(kind), TokenSet.of(kind));
+    }
+  }
+
+  @Test
+  void unionAgreesWithEnumSet () {
+    var random = new Random(42);
+    for (var i = 0; i < 1_000; i++) {
+      var a = randomSet(random);
+      var b = randomSet(random);
+      var c = randomSet(random);
+      var expected = EnumSet.copyOf(a);
+      expected.addAll(b);
+      expected.addAll(c);
+      assertSame(expected, TokenSet.union(toTokenSet(a), toTokenSet(b), toTokenSet(c)));
+    }
+  }
+
+  @Test
+  void firstAndFollowSetsAreUnchanged () {
+    assertSame(
+      EnumSet.of(
+        Token.Kind.IDENTIFIER, Token.Kind.L_PARENTHESIS, Token.Kind.CAST, Token.Kind.DIVINE,
+        Token.Kind.TRANSMUTE, Token.Kind.NEW, Token.Kind.DELETE, Token.Kind.AMPERSAND,
+        Token.Kind.ASTERISK, Token.Kind.EXCLAMATION, Token.Kind.MINUS, Token.Kind.PLUS,
+        Token.Kind.TILDE, Token.Kind.FALSE, Token.Kind.TRUE, Token.Kind.CHARACTER_LITERAL,
+        Token.Kind.FLOAT32_LITERAL, Token.Kind.FLOAT64_LITERAL, Token.Kind.INT32_LITERAL,
+        Token.Kind.INT64_LITERAL, Token.Kind.NULL, Token.Kind.STRING_LITERAL,
+        Token.Kind.UINT32_LITERAL, Token.Kind.UINT64_LITERAL
+      ),
+      FirstSet.EXPRESSION);
+    var primitiveTypes = EnumSet.of(
+      Token.Kind.BOOL, Token.Kind.DOUBLE, Token.Kind.FLOAT, Token.Kind.FLOAT32,
+      Token.Kind.FLOAT64, Token.Kind.INT, Token.Kind.INT8, Token.Kind.INT16, Token.Kind.INT32,
+      Token.Kind.INT64, Token.Kind.LONG, Token.Kind.NULL_T, Token.Kind.SHORT, Token.Kind.UINT,
+      Token.Kind.UINT8, Token.Kind.UINT16, Token.Kind.UINT32, Token.Kind.UINT64, Token.Kind.VOID
+    );
+    assertSame(primitiveTypes, FirstSet.PRIMITIVE_TYPE);
+    var declarators = EnumSet.copyOf(primitiveTypes);
+    declarators.addAll(EnumSet.of(Token.Kind.IDENTIFIER, Token.Kind.CARET, Token.Kind.L_PARENTHESIS, Token.Kind.ASTERISK));
+    assertSame(declarators, FirstSet.DECLARATOR);
+    assertSame(
+      EnumSet.of(
+        Token.Kind.PRIVATE, Token.Kind.CONST, Token.Kind.DEF, Token.Kind.CLASS,
+        Token.Kind.VAR, Token.Kind.VAL, Token.Kind.EOF
+      ),
+      FollowSet.USE_DECLARATIONS);
+    assertSame(EnumSet.of(Token.Kind.EOF), FollowSet.OTHER_DECLARATIONS);
+    assertSame(EnumSet.of(Token.Kind.R_PARENTHESIS, Token.Kind.SEMICOLON), FollowSet.ARRAY_DECLARATOR);
+  }
+
+  // CONST was missing from FIRST(other declaration), and from the follow set
+  // of the package declaration, which now derives from it
+
+  @Test
+  void constStartsAnOtherDeclaration () {
+    assertSame(
+      EnumSet.of(Token.Kind.PRIVATE, Token.Kind.CONST, Token.Kind.CLASS, Token.Kind.DEF, Token.Kind.VAL, Token.Kind.VAR),
+      FirstSet.OTHER_DECLARATION);
+    assertSame(
+      EnumSet.of(
+        Token.Kind.IMPORT, Token.Kind.USE, Token.Kind.PRIVATE, Token.Kind.CONST, Token.Kind.DEF,
+        Token.Kind.CLASS, Token.Kind.VAR, Token.Kind.VAL, Token.Kind.EOF
+      ),
+      FollowSet.PACKAGE_DECLARATION);
+  }
+
+}
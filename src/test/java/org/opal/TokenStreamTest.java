@@ -0,0 +1,36 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+// A streaming stream must not hold on to the whole file. The window stays at
+// its initial size, and only tokens that the AST keeps are retained, never the
+// punctuation between them.
+
+class TokenStreamTest {
+
+  private static final int DECLARATIONS = 50_000;
+
+  @Test
+  void streamingRetainsOnlyStoredTokens () {
+    var sb = new StringBuilder("package bench;\n\n");
+    for (var i = 0; i < DECLARATIONS; i++)
+      sb.append("var v").append(i).append(": int32 = ").append(i % 97).append(";\n");
+    var file = new SourceFile(sb.toString());
+    var stream = new Lexer(file).stream();
+    new Parser(stream, file).process();
+    Assertions.assertTrue(stream.isStreaming());
+    Assertions.assertTrue(stream.getBuffer().capacity() <= 256);
+    // Each declaration keeps 'var', its name, its type name, and its
+    // initializer, but not the colon, equals sign, or semicolon
+    var retained = stream.getRetained();
+    Assertions.assertTrue(retained.size() <= 4 * DECLARATIONS + 8);
+    for (var slot = 0; slot < retained.size(); slot++) {
+      var kind = retained.getKind(slot);
+      Assertions.assertNotEquals(Token.Kind.COLON, kind);
+      Assertions.assertNotEquals(Token.Kind.EQUAL, kind);
+      Assertions.assertNotEquals(Token.Kind.SEMICOLON, kind);
+    }
+  }
+
+}
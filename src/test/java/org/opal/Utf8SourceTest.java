@@ -0,0 +1,49 @@
+package org.opal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// The word-at-a-time scanning methods must find exactly the same positions as
+// a plain byte-at-a-time scan, from every starting index, including near the
+// end of the source where fewer than eight bytes remain.
+
+class Utf8SourceTest {
+
+  private static final String ALPHABET = "  \t\t\n\r*/_azAZ09`@[{:~.é€";
+
+  @Test
+  void scanningMatchesScalarScan () {
+    var random = new Random(42);
+    for (var trial = 0; trial < 200; trial++) {
+      var sb = new StringBuilder();
+      var length = random.nextInt(64);
+      for (var i = 0; i < length; i++)
+        sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+      var source = Utf8Source.of(sb.toString());
+      for (var index = 0; index <= source.length(); index++) {
+        Assertions.assertEquals(scan(source, index, "blank"), source.skipBlanks(index));
+        Assertions.assertEquals(scan(source, index, "word"), source.skipWord(index));
+        Assertions.assertEquals(scan(source, index, "comment"), source.skipCommentText(index));
+        Assertions.assertEquals(scan(source, index, "line"), source.skipLine(index));
+      }
+    }
+  }
+
+  private static int scan (Utf8Source source, int index, String run) {
+    while (index < source.length() && continues(source.charAt(index), run))
+      index += 1;
+    return index;
+  }
+
+  private static boolean continues (char ch, String run) {
+    return switch (run) {
+      case "blank" -> ch == ' ' || ch == '\t';
+      case "word" -> Character.isLetterOrDigit(ch) && ch < 128 || ch == '_';
+      case "comment" -> ch != '*' && ch != '\n' && ch != '\r';
+      default -> ch != '\n' && ch != '\r';
+    };
+  }
+
+}